@@ -1,55 +1,132 @@
 package com.app.emptylayout;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.drawable.Animatable;
 import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.support.v4.content.ContextCompat;
 import android.util.AttributeSet;
-import android.util.Log;
+import android.util.SparseArray;
+import android.view.Choreographer;
 import android.view.Gravity;
 import android.view.LayoutInflater;
+import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewParent;
 import android.view.ViewStub;
+import android.view.accessibility.AccessibilityEvent;
+import android.view.accessibility.AccessibilityManager;
 import android.view.animation.Animation;
 import android.view.animation.AnimationUtils;
 import android.view.animation.LinearInterpolator;
 import android.view.animation.RotateAnimation;
+import android.widget.ImageView;
 import android.widget.LinearLayout;
 import android.widget.RelativeLayout;
-import android.widget.TextView;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class EmptyLayout extends LinearLayout {
 
     private Animation mLoadingAnimation;
+    private int mLoadingAnimationRes; // the resource mLoadingAnimation was loaded from, 0 if set as an instance
 
-    private ViewGroup mLoadingView;
-    private ViewGroup mEmptyView;
-    private ViewGroup mErrorView;
+    // every state, the built-in TYPE_* ones and the registered ones, keyed by type
+    private final SparseArray<StateEntry> mStates = new SparseArray<>();
+    private final StateEntry mLoadingEntry = new StateEntry(TYPE_LOADING, null, R.layout.view_loading);
+    private final StateEntry mEmptyEntry = new StateEntry(TYPE_EMPTY, null, R.layout.view_empty);
+    private final StateEntry mErrorEntry = new StateEntry(TYPE_ERROR, null, R.layout.view_error);
+    private View mShownStateView; // the visible view in mEmptyRelativeLayout
+    private StateEntry mAnimatedEntry; // the state whose view holds loadingAnimationView
 
-    private View loadingViewButton;
-    private View emptyViewButton;
-    private View errorViewButton;
 
-    private TextView mLoadingMessageView;
-    private TextView mEmptyMessageView;
-    private TextView mErrorMessageView;
-
-
-    private RelativeLayout mEmptyRelativeLayout;
+    private StateContainer mEmptyRelativeLayout;
     private int mErrorMessageViewId;
     private int mEmptyMessageViewId;
     private int mLoadingMessageViewId;
     private LayoutInflater mInflater;
 
     private boolean mViewsAdded; // flag for whether mEmptyRelativeLayout has been initialized.
-    private boolean mEmptyViewAdded;
-    private boolean mErrorViewAdded;
-    private boolean mLoadingViewAdded;
+    private boolean mStateShown;
+    private boolean mDrawnStateViews;
+    private boolean mSkeletonLoading;
+    private LoadBinding<?> mLoadBinding;
+    // the attached EmptyLayouts, trimmed by a single callback registered with the application
+    private static final Set<EmptyLayout> sTrimmedLayouts = Collections.newSetFromMap(new WeakHashMap<EmptyLayout, Boolean>());
+    private static ComponentCallbacks2 sTrimCallbacks;
+
+    private static OnMetricsListener sMetricsListener;
+    private OnMetricsListener mMetricsListener;
+    private long mCreatedTime;
+    private boolean mFirstStateReported;
+    private int mLayoutRequestCount;
+
+    private boolean mLoadingOverlay;
+    private int mLoadingOverlayColor = DEFAULT_OVERLAY_COLOR;
+    private boolean mContainerInOverlay;
+    private boolean mContainerDetached; // mEmptyRelativeLayout detached with detachViewFromParent() by hide()
+
+    private volatile boolean mCoalesceTransitions;
+    // the latest coalesced request, published with its message and icon
+    private final AtomicReference<StateRequest> mPendingRequest = new AtomicReference<>();
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private Choreographer.FrameCallback mApplyFrameCallback;
+    private long mLoadingShowDelay;
+    private long mLoadingMinDuration;
+    private long mLoadingShownAt;
+    private int mDeferredState = STATE_NONE; // state waiting for the loading delay or minimum duration
+    private int mStateOnAttach = STATE_NONE; // deferred state dropped by onDetachedFromWindow()
+    private final Runnable mDeferredStateRunnable = new Runnable() {
+        @Override
+        public void run() {
+            int state = mDeferredState;
+            mDeferredState = STATE_NONE;
+            if (state != STATE_NONE) {
+                applyStateNow(state);
+            }
+        }
+    };
+    private final Runnable mScheduleRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                scheduleApply();
+            } else {
+                applyPendingState();
+            }
+        }
+    };
 
     private int mLoadingAnimationViewId;
     private View loadingAnimationView;
+    private final LoadingAnimationDriver mAnimationDriver = new LoadingAnimationDriver(this);
+    private final RetryScheduler mRetryScheduler = new RetryScheduler(this, mMainHandler);
+    private Animation mRotateAnimation; // the default loading animation, created once
+    private boolean mRenderThreadLoading;
+    private int mLoadingDrawableRes = R.drawable.avd_loading;
+
+    private float mLoadingProgress = -1; // -1 for no determinate progress
+    private long mLoadingProgressBytes;
+    private long mLoadingProgressTotalBytes;
+    private String mLoadingProgressEta;
+    private LoadingProgressView mProgressView;
+    private View mProgressHost; // the loading view mProgressView was looked up in
 
     private OnClickListener mLoadingButtonClickListener;
     private OnClickListener mEmptyButtonClickListener;
@@ -69,55 +146,300 @@ public class EmptyLayout extends LinearLayout {
      */
     public final static int TYPE_ERROR = 3;
 
+    /**
+     * No state, the content is shown. Only returned by a {@link ResultClassifier}, see {@link #hide()}.
+     */
+    public final static int TYPE_CONTENT = 0;
+
+    // internal state for requestState(): no state shown, content visible
+    private final static int STATE_HIDDEN = TYPE_CONTENT;
+    // no state deferred in mDeferredState
+    private final static int STATE_NONE = -1;
+
+    private final static int DEFAULT_OVERLAY_COLOR = 0xB3FFFFFF;
+
+    /**
+     * Receives the cost of the state transitions. Called on the main thread, only when installed, see
+     * {@link #setMetricsListener(OnMetricsListener)} and {@link #setGlobalMetricsListener(OnMetricsListener)}.
+     * The same phases show up in system traces as EmptyLayout#inflate, EmptyLayout#bind and EmptyLayout#attach.
+     */
+    public interface OnMetricsListener {
+
+        /**
+         * Called after each state transition
+         *
+         * @param layout         the EmptyLayout
+         * @param type           the state shown, TYPE_EMPTY, TYPE_LOADING or TYPE_ERROR
+         * @param inflateNanos   time spent creating the state view
+         * @param bindNanos      time spent binding the message, icon and button
+         * @param attachNanos    time spent attaching and switching the state views
+         * @param inflations     number of layouts inflated during the transition
+         * @param layoutRequests number of layout requests that reached the EmptyLayout during the transition
+         */
+        void onTransition(EmptyLayout layout, int type, long inflateNanos, long bindNanos, long attachNanos,
+                          int inflations, int layoutRequests);
+
+        /**
+         * Called after each measure pass of the EmptyLayout
+         *
+         * @param layout       the EmptyLayout
+         * @param measureNanos time spent measuring the EmptyLayout and its children
+         */
+        void onMeasure(EmptyLayout layout, long measureNanos);
+
+        /**
+         * Called once, after the first state transition of an EmptyLayout
+         *
+         * @param layout           the EmptyLayout
+         * @param type             the state shown
+         * @param sinceCreateNanos time from the construction of the EmptyLayout to the end of the transition
+         */
+        void onFirstState(EmptyLayout layout, int type, long sinceCreateNanos);
+    }
+
+    /**
+     * Decides the state a load result is shown with, see {@link #bind(Loader, ResultClassifier, OnLoadListener)}.
+     * Called on the main thread.
+     */
+    public interface ResultClassifier<T> {
+
+        /**
+         * @param result the result of the load
+         * @return TYPE_CONTENT, TYPE_EMPTY, TYPE_ERROR or a registered state
+         */
+        int classify(T result);
+    }
+
+    /**
+     * Receives the result of a bound load on the main thread, after the state was switched
+     */
+    public interface OnLoadListener<T> {
+
+        /**
+         * @param result the result
+         * @param type   the state the result was classified as
+         */
+        void onLoaded(T result, int type);
+
+        /**
+         * @param error the error thrown by the task or passed to {@link LoadCallback#onError(Throwable)},
+         *              the error state is shown
+         */
+        void onFailed(Throwable error);
+
+        /**
+         * The load was cancelled before its result: the EmptyLayout was detached, another load was bound or
+         * {@link #cancelLoad()} was called. The shown state does not change, e.g. bind again once attached.
+         */
+        void onCancelled();
+    }
+
+    /**
+     * Receives the result of a {@link Loader}, from any thread. Only the first call counts.
+     */
+    public interface LoadCallback<T> {
+
+        void onResult(T result);
+
+        void onError(Throwable error);
+    }
+
+    /**
+     * A callback-style load, e.g. a network call or a CompletableFuture, see {@link #bind(Loader, OnLoadListener)}
+     */
+    public interface Loader<T> {
+
+        /**
+         * Starts the load, called on the main thread
+         *
+         * @param callback receives the result, from any thread
+         */
+        void load(LoadCallback<T> callback);
+
+        /**
+         * Stops the load, called on the main thread when the EmptyLayout is detached or another load is bound.
+         * Not called after a result was delivered.
+         */
+        void cancel();
+    }
+
     // ---------------------------
     // default values
     // ---------------------------
     private int mEmptyType = TYPE_LOADING;
-    private int mErrorDrawable = R.drawable.ic_error;
-    private int mEmptyDrawable = R.drawable.ic_empty;
 
-    private String mErrorMessage = getResources().getString(R.string.error_message);
-    private String mEmptyMessage = getResources().getString(R.string.empty_message);
-    private String mLoadingMessage = getResources().getString(R.string.loading_message);
+    // values left unset (0 / null) are taken from the EmptyLayoutStyle when a state is first shown
+    private EmptyLayoutStyle mStyle;
+    private int mStyleRes;
+    private boolean mStyleApplied;
+
+    private int mErrorDrawable;
+    private int mEmptyDrawable;
 
-    private int mLoadingViewButtonId = R.id.buttonLoading;
-    private int mErrorViewButtonId = R.id.buttonError;
-    private int mEmptyViewButtonId = R.id.buttonEmpty;
-    private boolean mShowEmptyButton = true;
-    private boolean mShowLoadingButton = true;
-    private boolean mShowErrorButton = true;
+    private String mErrorMessage;
+    private String mEmptyMessage;
+    private String mLoadingMessage;
 
-    private List<View> childViews;
+    private int mLoadingViewButtonId;
+    private int mErrorViewButtonId;
+    private int mEmptyViewButtonId;
+    private Boolean mShowEmptyButton;
+    private Boolean mShowLoadingButton;
+    private Boolean mShowErrorButton;
+    private String mLoadingButtonText;
+    private String mEmptyButtonText;
+    private String mErrorButtonText;
+
+    private List<View> childViews; // content children, maintained by mHierarchyChangeListener
+    private int[] mChildVisibility = new int[8]; // visibility of childViews before a state was shown
+    private boolean mContentHidden;
+    private boolean mSuppressContent; // hide the content with a flag instead of child visibility
+    private boolean mContentSuppressed;
+    private OnHierarchyChangeListener mOnHierarchyChangeListener;
 
 
     public EmptyLayout(Context context) {
         super(context);
-        init();
+        init(null, R.attr.el_emptyLayoutStyle);
     }
 
 
     public EmptyLayout(Context context, AttributeSet attrs) {
         super(context, attrs);
-        init();
+        init(attrs, R.attr.el_emptyLayoutStyle);
     }
 
     public EmptyLayout(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
-        init();
+        init(attrs, defStyleAttr);
+    }
+
+    /**
+     * 在主线程空闲时预先inflate默认的加载、空、错误View，之后的showLoading()等只需要添加已经创建好的View
+     *
+     * @param context the context the EmptyLayouts will be created with, usually the Activity
+     */
+    public static void preloadDefaultViews(Context context) {
+        preloadDefaultViews(context, 1);
+    }
+
+    /**
+     * @param context the context the EmptyLayouts will be created with, usually the Activity
+     * @param count   how many views of each state to prepare
+     */
+    public static void preloadDefaultViews(Context context, int count) {
+        StateViewPool.preload(context, count, R.layout.view_loading, R.layout.view_empty, R.layout.view_error);
     }
 
-    private void init() {
+    private void init(AttributeSet attrs, int defStyleAttr) {
+        mCreatedTime = System.nanoTime();
+        if (defStyleAttr == 0) {
+            defStyleAttr = R.attr.el_emptyLayoutStyle;
+        }
+        mStyleRes = attrs != null ? attrs.getStyleAttribute() : 0;
+        if (attrs != null && EmptyLayoutStyle.hasStyleAttributes(attrs) || defStyleAttr != R.attr.el_emptyLayoutStyle) {
+            // attributes of this layout tag or a style attribute of a subclass, resolved for this layout only
+            mStyle = EmptyLayoutStyle.resolve(getContext(), attrs, defStyleAttr);
+        }
         childViews = new ArrayList<>();
+        mStates.put(TYPE_LOADING, mLoadingEntry);
+        mStates.put(TYPE_EMPTY, mEmptyEntry);
+        mStates.put(TYPE_ERROR, mErrorEntry);
         mInflater = (LayoutInflater) getContext().getSystemService(Context.LAYOUT_INFLATER_SERVICE);
+        super.setOnHierarchyChangeListener(mHierarchyChangeListener);
+    }
+
+    @Override
+    public void setOnHierarchyChangeListener(OnHierarchyChangeListener listener) {
+        // keep tracking content children, forward the callbacks to the caller's listener
+        mOnHierarchyChangeListener = listener;
+    }
+
+    /**
+     * Fills the values which were not set with the style of the theme, resolving it on first use
+     */
+    private void applyStyle() {
+        if (mStyleApplied) {
+            return;
+        }
+        mStyleApplied = true;
+        EmptyLayoutStyle style = mStyle;
+        if (style == null) {
+            style = EmptyLayoutStyle.obtain(getContext(), mStyleRes);
+            mStyle = style;
+        }
+        if (mErrorDrawable == 0) mErrorDrawable = style.errorDrawable;
+        if (mEmptyDrawable == 0) mEmptyDrawable = style.emptyDrawable;
+        if (mLoadingEntry.layoutRes == 0) mLoadingEntry.layoutRes = style.loadingLayoutRes;
+        if (mEmptyEntry.layoutRes == 0) mEmptyEntry.layoutRes = style.emptyLayoutRes;
+        if (mErrorEntry.layoutRes == 0) mErrorEntry.layoutRes = style.errorLayoutRes;
+        if (mErrorMessage == null) mErrorMessage = style.errorMessage;
+        if (mEmptyMessage == null) mEmptyMessage = style.emptyMessage;
+        if (mLoadingMessage == null) mLoadingMessage = style.loadingMessage;
+        if (mLoadingViewButtonId == 0) mLoadingViewButtonId = style.loadingButtonId;
+        if (mErrorViewButtonId == 0) mErrorViewButtonId = style.errorButtonId;
+        if (mEmptyViewButtonId == 0) mEmptyViewButtonId = style.emptyButtonId;
+        if (mShowEmptyButton == null) mShowEmptyButton = style.showEmptyButton;
+        if (mShowLoadingButton == null) mShowLoadingButton = style.showLoadingButton;
+        if (mShowErrorButton == null) mShowErrorButton = style.showErrorButton;
+        if (mLoadingButtonText == null) mLoadingButtonText = style.loadingButtonText;
+        if (mEmptyButtonText == null) mEmptyButtonText = style.emptyButtonText;
+        if (mErrorButtonText == null) mErrorButtonText = style.errorButtonText;
+        if (mLoadingAnimation == null && style.loadingAnimationRes != 0) {
+            mLoadingAnimation = AnimationUtils.loadAnimation(getContext(), style.loadingAnimationRes);
+            mLoadingAnimationRes = style.loadingAnimationRes;
+        }
     }
 
+    private final OnHierarchyChangeListener mHierarchyChangeListener = new OnHierarchyChangeListener() {
+        @Override
+        public void onChildViewAdded(View parent, View child) {
+            if (!isEmptyView(child)) {
+                addChildView(child);
+            }
+            if (mOnHierarchyChangeListener != null) {
+                mOnHierarchyChangeListener.onChildViewAdded(parent, child);
+            }
+        }
+
+        @Override
+        public void onChildViewRemoved(View parent, View child) {
+            removeChildView(child);
+            if (mOnHierarchyChangeListener != null) {
+                mOnHierarchyChangeListener.onChildViewRemoved(parent, child);
+            }
+        }
+    };
+
     /**
      * Gets the loading layout
+     * <p>
+     * A default layout is taken from a shared pool and given back when the state is hidden, then this
+     * returns null. Once returned here it is kept by this EmptyLayout and never recycled, so it may be
+     * customised; the setters of EmptyLayout keep the pool working. Also null
+     * while the state is drawn by a single view, see {@link #setSkeletonLoading(boolean)}.
      *
      * @return the loading layout
      */
     public ViewGroup getLoadingView() {
-        return mLoadingView;
+        return asLayout(keepStateView(mLoadingEntry));
+    }
+
+    /**
+     * Gets the view of a state for the app: a pooled view is not given back to the pool anymore, the app
+     * may change it
+     */
+    private static View keepStateView(StateEntry entry) {
+        entry.pooled = false;
+        entry.pooledLayoutRes = 0;
+        return entry.view;
+    }
+
+    /**
+     * The state views are typed View inside, the drawn ones are not layouts
+     */
+    private static ViewGroup asLayout(View view) {
+        return view instanceof ViewGroup ? (ViewGroup) view : null;
     }
 
     /**
@@ -126,7 +448,7 @@ public class EmptyLayout extends LinearLayout {
      * @param loadingView
      */
     public void setLoadingView(ViewGroup loadingView) {
-        this.mLoadingView = loadingView;
+        setStateView(mLoadingEntry, loadingView, false);
     }
 
     /**
@@ -135,16 +457,23 @@ public class EmptyLayout extends LinearLayout {
      * @param res
      */
     public void setLoadingViewRes(int res) {
-        this.mLoadingView = (ViewGroup) mInflater.inflate(res, null);
+        mLoadingEntry.layoutRes = res;
+        // kept by this EmptyLayout, the app may customise it through getLoadingView()
+        setStateView(mLoadingEntry, StateViewPool.inflate(mInflater, res), false);
     }
 
     /**
      * Gets the empty layout
+     * <p>
+     * A default layout is taken from a shared pool and given back when the state is hidden, then this
+     * returns null. Once returned here it is kept by this EmptyLayout and never recycled, so it may be
+     * customised; the setters of EmptyLayout keep the pool working. Also null
+     * while the state is drawn by a single view, see {@link #setDrawnStateViews(boolean)}.
      *
      * @return the empty layout
      */
     public ViewGroup getEmptyView() {
-        return mEmptyView;
+        return asLayout(keepStateView(mEmptyEntry));
     }
 
     /**
@@ -153,7 +482,7 @@ public class EmptyLayout extends LinearLayout {
      * @param emptyView
      */
     public void setEmptyView(ViewGroup emptyView) {
-        this.mEmptyView = emptyView;
+        setStateView(mEmptyEntry, emptyView, false);
     }
 
     /**
@@ -162,16 +491,23 @@ public class EmptyLayout extends LinearLayout {
      * @param res
      */
     public void setEmptyViewRes(int res) {
-        this.mEmptyView = (ViewGroup) mInflater.inflate(res, null);
+        mEmptyEntry.layoutRes = res;
+        // kept by this EmptyLayout, the app may customise it through getEmptyView()
+        setStateView(mEmptyEntry, StateViewPool.inflate(mInflater, res), false);
     }
 
     /**
      * Gets the error layout
+     * <p>
+     * A default layout is taken from a shared pool and given back when the state is hidden, then this
+     * returns null. Once returned here it is kept by this EmptyLayout and never recycled, so it may be
+     * customised; the setters of EmptyLayout keep the pool working. Also null
+     * while the state is drawn by a single view, see {@link #setDrawnStateViews(boolean)}.
      *
      * @return the error layout
      */
     public ViewGroup getErrorView() {
-        return mErrorView;
+        return asLayout(keepStateView(mErrorEntry));
     }
 
     /**
@@ -180,7 +516,7 @@ public class EmptyLayout extends LinearLayout {
      * @param errorView
      */
     public void setErrorView(ViewGroup errorView) {
-        this.mErrorView = errorView;
+        setStateView(mErrorEntry, errorView, false);
     }
 
     /**
@@ -189,7 +525,9 @@ public class EmptyLayout extends LinearLayout {
      * @param res
      */
     public void setErrorViewRes(int res) {
-        this.mErrorView = (ViewGroup) mInflater.inflate(res, null);
+        mErrorEntry.layoutRes = res;
+        // kept by this EmptyLayout, the app may customise it through getErrorView()
+        setStateView(mErrorEntry, StateViewPool.inflate(mInflater, res), false);
     }
 
     /**
@@ -198,16 +536,26 @@ public class EmptyLayout extends LinearLayout {
      * @return the loading animation
      */
     public Animation getLoadingAnimation() {
+        applyStyle();
         return mLoadingAnimation;
     }
 
     /**
-     * Sets the loading animation
+     * Sets the loading animation. The items of {@link EmptyStateAdapter} and {@link EmptyStateListAdapter}
+     * share this instance; set it with {@link #setLoadingAnimationRes(int)} to give each one its own.
      *
      * @param animation
      */
     public void setLoadingAnimation(Animation animation) {
+        setLoadingAnimation(animation, 0);
+    }
+
+    private void setLoadingAnimation(Animation animation, int animationRes) {
         this.mLoadingAnimation = animation;
+        this.mLoadingAnimationRes = animationRes;
+        if (animation != null && loadingAnimationView != null && mStateShown && mEmptyType == TYPE_LOADING) {
+            mAnimationDriver.start(loadingAnimationView, animation);
+        }
     }
 
     /**
@@ -216,7 +564,7 @@ public class EmptyLayout extends LinearLayout {
      * @param animationResource
      */
     public void setLoadingAnimationRes(int animationResource) {
-        mLoadingAnimation = AnimationUtils.loadAnimation(getContext(), animationResource);
+        setLoadingAnimation(AnimationUtils.loadAnimation(getContext(), animationResource), animationResource);
     }
 
 
@@ -228,17 +576,311 @@ public class EmptyLayout extends LinearLayout {
     }
 
     /**
-     * @param emptyType
+     * @param emptyType TYPE_EMPTY, TYPE_LOADING, TYPE_ERROR or a registered state
      */
     public void setEmptyType(int emptyType) {
-        this.mEmptyType = emptyType;
-        changeType();
+        showState(emptyType);
+    }
+
+    /**
+     * Registers a state of its own, shown with {@link #showState(int)}. Its view is only inflated when
+     * the state is first shown, and switching between states costs the same whatever their number.
+     *
+     * @param type  the type of the state, a positive number other than TYPE_EMPTY, TYPE_LOADING and TYPE_ERROR
+     * @param state the state, replacing the state already registered with this type
+     */
+    public void registerState(int type, EmptyState state) {
+        if (type <= 0 || type == TYPE_EMPTY || type == TYPE_LOADING || type == TYPE_ERROR) {
+            throw new IllegalArgumentException("EmptyLayout type " + type + " is reserved");
+        }
+        boolean shown = mStateShown && mEmptyType == type;
+        unregisterState(type);
+        StateEntry entry = new StateEntry(type, state, 0);
+        entry.layoutRes = state.getLayoutRes();
+        mStates.put(type, entry);
+        if (shown) {
+            applyStateNow(type);
+        }
+    }
+
+    /**
+     * Removes a registered state, hiding the EmptyLayout if the state is shown
+     *
+     * @param type the type of the state
+     */
+    public void unregisterState(int type) {
+        StateEntry entry = mStates.get(type);
+        if (entry == null || entry.state == null) {
+            return;
+        }
+        if (mStateShown && mEmptyType == type) {
+            applyStateNow(STATE_HIDDEN);
+        }
+        setStateView(entry, null, false);
+        mStates.remove(type);
+    }
+
+    /**
+     * Gets if a state exists, built-in or registered
+     *
+     * @param type the type of the state
+     */
+    public boolean hasState(int type) {
+        return mStates.get(type) != null;
+    }
+
+    /**
+     * Shows a state
+     *
+     * @param type TYPE_EMPTY, TYPE_LOADING, TYPE_ERROR or a registered state
+     */
+    public void showState(int type) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            // the registry belongs to the main thread, the type is checked when the request is applied
+            requestState(type, true, false, null, 0);
+            return;
+        }
+        getStateEntry(type);
+        requestState(type);
+    }
+
+    /**
+     * Gets if the loading indicator is an animated drawable instead of a view Animation
+     *
+     * @return if the RenderThread loading indicator is used
+     */
+    public boolean isRenderThreadLoading() {
+        return mRenderThreadLoading;
+    }
+
+    /**
+     * Sets if the loading animation view (an ImageView, see {@link #setLoadingAnimationViewId(int)}) shows an
+     * animated vector drawable instead of playing the loading Animation. From API 25 the drawable is animated
+     * on the RenderThread and keeps spinning while the main thread is busy. Below API 21, or if the view is
+     * not an ImageView, the loading Animation is used.
+     *
+     * @param renderThreadLoading use the animated drawable
+     */
+    public void setRenderThreadLoading(boolean renderThreadLoading) {
+        this.mRenderThreadLoading = renderThreadLoading;
+    }
+
+    /**
+     * Sets the animated drawable used when {@link #setRenderThreadLoading(boolean)} is enabled
+     *
+     * @param drawableRes an animated-vector (or any Animatable) drawable resource
+     */
+    public void setLoadingAnimationDrawableRes(int drawableRes) {
+        this.mLoadingDrawableRes = drawableRes;
+    }
+
+    /**
+     * Sets the metrics listener of this EmptyLayout, it overrides the global one
+     *
+     * @param metricsListener the listener, null to use the global listener
+     */
+    public void setMetricsListener(OnMetricsListener metricsListener) {
+        this.mMetricsListener = metricsListener;
+    }
+
+    public OnMetricsListener getMetricsListener() {
+        return mMetricsListener;
+    }
+
+    /**
+     * Sets the metrics listener of every EmptyLayout without a listener of its own
+     *
+     * @param metricsListener the listener, null to disable metrics
+     */
+    public static void setGlobalMetricsListener(OnMetricsListener metricsListener) {
+        sMetricsListener = metricsListener;
+    }
+
+    private OnMetricsListener getEffectiveMetricsListener() {
+        return mMetricsListener != null ? mMetricsListener : sMetricsListener;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        OnMetricsListener metricsListener = getEffectiveMetricsListener();
+        if (metricsListener == null) {
+            measureContent(widthMeasureSpec, heightMeasureSpec);
+            return;
+        }
+        long startTime = System.nanoTime();
+        measureContent(widthMeasureSpec, heightMeasureSpec);
+        metricsListener.onMeasure(this, System.nanoTime() - startTime);
+    }
+
+    private void measureContent(int widthMeasureSpec, int heightMeasureSpec) {
+        if (!mContentSuppressed) {
+            super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+            return;
+        }
+        // content suppressed: only the state container is measured
+        int width = getPaddingLeft() + getPaddingRight();
+        int height = getPaddingTop() + getPaddingBottom();
+        if (isStateContainerChild()) {
+            measureChildWithMargins(mEmptyRelativeLayout, widthMeasureSpec, 0, heightMeasureSpec, 0);
+            MarginLayoutParams lp = (MarginLayoutParams) mEmptyRelativeLayout.getLayoutParams();
+            width += mEmptyRelativeLayout.getMeasuredWidth() + lp.leftMargin + lp.rightMargin;
+            height += mEmptyRelativeLayout.getMeasuredHeight() + lp.topMargin + lp.bottomMargin;
+        }
+        setMeasuredDimension(resolveSize(Math.max(width, getSuggestedMinimumWidth()), widthMeasureSpec),
+                resolveSize(Math.max(height, getSuggestedMinimumHeight()), heightMeasureSpec));
+    }
+
+    private boolean isStateContainerChild() {
+        return mEmptyRelativeLayout != null && mEmptyRelativeLayout.getParent() == this;
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        if (!mContentSuppressed) {
+            super.dispatchDraw(canvas);
+        } else if (isStateContainerChild()) {
+            drawChild(canvas, mEmptyRelativeLayout, getDrawingTime());
+        }
+    }
+
+    @Override
+    public void requestLayout() {
+        mLayoutRequestCount++;
+        super.requestLayout();
+    }
+
+    private static void beginTraceSection(String sectionName) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.beginSection(sectionName);
+        }
+    }
+
+    private static void endTraceSection() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.endSection();
+        }
+    }
+
+    /**
+     * Gets if the content is hidden by skipping it in measure, layout and draw
+     *
+     * @return if the content suppression is enabled
+     */
+    public boolean isSuppressContent() {
+        return mSuppressContent;
+    }
+
+    /**
+     * Sets if showing a state hides the content with a single flag: the children keep their visibility and
+     * are skipped in onMeasure, onLayout, dispatchDraw and touch dispatch, so a transition costs the same
+     * whatever the number of children. Focus and accessibility only reach the state views, and while an
+     * accessibility service is on the children are hidden one by one as usual. Meant for layouts with very
+     * many direct children. Takes effect at the next time the content is hidden.
+     *
+     * @param suppressContent hide the content with a single flag
+     */
+    public void setSuppressContent(boolean suppressContent) {
+        this.mSuppressContent = suppressContent;
+    }
+
+    /**
+     * Gets if the loading state is shown over the content
+     *
+     * @return if the loading state is shown over the content
+     */
+    public boolean isLoadingOverlay() {
+        return mLoadingOverlay;
+    }
+
+    /**
+     * Sets if the loading state is drawn in the overlay of the EmptyLayout, over the content, instead of
+     * replacing it. The content is neither hidden nor re-laid out, and keeps its scroll position. Only
+     * available from API 18, the loading view replaces the content on older versions.
+     *
+     * @param loadingOverlay show loading over the content
+     */
+    public void setLoadingOverlay(boolean loadingOverlay) {
+        this.mLoadingOverlay = loadingOverlay;
+    }
+
+    /**
+     * Sets the color drawn between the content and the loading view in overlay mode
+     *
+     * @param color the color, translucent white by default
+     */
+    public void setLoadingOverlayColor(int color) {
+        this.mLoadingOverlayColor = color;
+        if (mContainerInOverlay) {
+            mEmptyRelativeLayout.setBackgroundColor(color);
+        }
+    }
+
+    /**
+     * Gets the delay before the loading state is shown
+     *
+     * @return the delay in milliseconds
+     */
+    public long getLoadingShowDelay() {
+        return mLoadingShowDelay;
+    }
+
+    /**
+     * Sets the delay before the loading state is shown. If hide() or another state is requested before
+     * the delay expires, the loading view is never inflated nor shown.
+     *
+     * @param delayMillis the delay in milliseconds, 0 shows loading immediately
+     */
+    public void setLoadingShowDelay(long delayMillis) {
+        this.mLoadingShowDelay = delayMillis < 0 ? 0 : delayMillis;
+    }
+
+    /**
+     * Gets the minimum time the loading state stays visible once shown
+     *
+     * @return the minimum duration in milliseconds
+     */
+    public long getLoadingMinDuration() {
+        return mLoadingMinDuration;
+    }
+
+    /**
+     * Sets the minimum time the loading state stays visible once shown, to avoid flashing it. A state
+     * requested earlier is applied when the minimum duration is reached.
+     *
+     * @param durationMillis the minimum duration in milliseconds, 0 for none
+     */
+    public void setLoadingMinDuration(long durationMillis) {
+        this.mLoadingMinDuration = durationMillis < 0 ? 0 : durationMillis;
+    }
+
+    /**
+     * Gets if state requests are coalesced and applied once per frame
+     *
+     * @return if state requests are coalesced
+     */
+    public boolean isCoalesceTransitions() {
+        return mCoalesceTransitions;
+    }
+
+    /**
+     * Sets if showLoading(), showEmpty(), showError(), showState() and hide() are coalesced. When enabled
+     * they may be called from any thread; only the latest request is kept and it is applied on the main
+     * thread at the next frame, so intermediate states are never inflated nor measured. The message and
+     * icon given to showLoading(String), showEmpty(int, String) and showError(int, String) are set with
+     * their request, those of a replaced request are dropped. The type given to showState() from another
+     * thread is checked when the request is applied.
+     *
+     * @param coalesceTransitions coalesce state requests
+     */
+    public void setCoalesceTransitions(boolean coalesceTransitions) {
+        this.mCoalesceTransitions = coalesceTransitions;
     }
 
     /**
      * @return
      */
     public String getErrorMessage() {
+        applyStyle();
         return mErrorMessage;
     }
 
@@ -262,6 +904,7 @@ public class EmptyLayout extends LinearLayout {
      * @return
      */
     public String getEmptyMessage() {
+        applyStyle();
         return mEmptyMessage;
     }
 
@@ -287,6 +930,7 @@ public class EmptyLayout extends LinearLayout {
      * @return
      */
     public String getLoadingMessage() {
+        applyStyle();
         return mLoadingMessage;
     }
 
@@ -372,6 +1016,51 @@ public class EmptyLayout extends LinearLayout {
      */
     public void setErrorButtonClickListener(OnClickListener errorButtonClickListener) {
         this.mErrorButtonClickListener = errorButtonClickListener;
+        mRetryScheduler.setListener(errorButtonClickListener);
+    }
+
+    /**
+     * Gets the retry policy of the error state
+     *
+     * @return the policy, null for none
+     */
+    public RetryPolicy getRetryPolicy() {
+        return mRetryScheduler.getPolicy();
+    }
+
+    /**
+     * Sets how the error state retries with the error button click listener. With a policy the taps on the
+     * button are ignored while a retry is in flight, i.e. until another state than loading is shown, and
+     * the listener is also called by itself after a backoff delay, with the EmptyLayout as the view.
+     *
+     * @param retryPolicy the policy, null to call the listener on every tap only
+     */
+    public void setRetryPolicy(RetryPolicy retryPolicy) {
+        mRetryScheduler.setPolicy(retryPolicy);
+        if (mStateShown && mEmptyType == TYPE_ERROR) {
+            mRetryScheduler.onStateShown(TYPE_ERROR);
+            refreshMessages(mErrorEntry);
+        }
+    }
+
+    private OnClickListener getBoundErrorButtonClickListener() {
+        return mErrorButtonClickListener != null && mRetryScheduler.getPolicy() != null
+                ? mRetryScheduler : mErrorButtonClickListener;
+    }
+
+    private String getBoundErrorMessage() {
+        int seconds = mRetryScheduler.getCountdownSeconds();
+        return seconds > 0 && mErrorMessage != null
+                ? getResources().getString(R.string.error_retry_countdown, mErrorMessage, seconds) : mErrorMessage;
+    }
+
+    /**
+     * Shows the seconds left before the automatic retry, or removes them
+     */
+    void onRetryCountdown() {
+        if (mStateShown && mEmptyType == TYPE_ERROR && mErrorEntry.view != null) {
+            refreshMessages(mErrorEntry);
+        }
     }
 
     /**
@@ -380,6 +1069,7 @@ public class EmptyLayout extends LinearLayout {
      * @return if a button is shown in the empty view
      */
     public boolean isEmptyButtonShown() {
+        applyStyle();
         return mShowEmptyButton;
     }
 
@@ -398,6 +1088,7 @@ public class EmptyLayout extends LinearLayout {
      * @return if a button is shown in the loading view
      */
     public boolean isLoadingButtonShown() {
+        applyStyle();
         return mShowLoadingButton;
     }
 
@@ -416,6 +1107,7 @@ public class EmptyLayout extends LinearLayout {
      * @return if a button is shown in the error view
      */
     public boolean isErrorButtonShown() {
+        applyStyle();
         return mShowErrorButton;
     }
 
@@ -428,12 +1120,40 @@ public class EmptyLayout extends LinearLayout {
         this.mShowErrorButton = showErrorButton;
     }
 
+    /**
+     * Sets the text of the button in the default loading view
+     *
+     * @param loadingButtonText the text, null keeps the default text
+     */
+    public void setLoadingButtonText(String loadingButtonText) {
+        this.mLoadingButtonText = loadingButtonText;
+    }
+
+    /**
+     * Sets the text of the button in the default empty view
+     *
+     * @param emptyButtonText the text, null keeps the default text
+     */
+    public void setEmptyButtonText(String emptyButtonText) {
+        this.mEmptyButtonText = emptyButtonText;
+    }
+
+    /**
+     * Sets the text of the button in the default error view
+     *
+     * @param errorButtonText the text, null keeps the default text
+     */
+    public void setErrorButtonText(String errorButtonText) {
+        this.mErrorButtonText = errorButtonText;
+    }
+
     /**
      * Gets the ID of the button in the loading view
      *
      * @return the ID of the button in the loading view
      */
     public int getmLoadingViewButtonId() {
+        applyStyle();
         return mLoadingViewButtonId;
     }
 
@@ -452,6 +1172,7 @@ public class EmptyLayout extends LinearLayout {
      * @return the ID of the button in the error view
      */
     public int getErrorViewButtonId() {
+        applyStyle();
         return mErrorViewButtonId;
     }
 
@@ -470,6 +1191,7 @@ public class EmptyLayout extends LinearLayout {
      * @return the ID of the button in the empty view
      */
     public int getEmptyViewButtonId() {
+        applyStyle();
         return mEmptyViewButtonId;
     }
 
@@ -484,6 +1206,7 @@ public class EmptyLayout extends LinearLayout {
 
 
     public int getErrorDrawable() {
+        applyStyle();
         return mErrorDrawable;
     }
 
@@ -497,6 +1220,7 @@ public class EmptyLayout extends LinearLayout {
     }
 
     public int getEmptyDrawable() {
+        applyStyle();
         return mEmptyDrawable;
     }
 
@@ -509,27 +1233,152 @@ public class EmptyLayout extends LinearLayout {
         this.mEmptyDrawable = mEmptyDrawable;
     }
 
-    private void getChildViews() {
-        int childCount = getChildCount();
-        Log.d("EmptyLayout", "ChildCount:" + childCount);
-        View view;
-        childViews.clear();
-        for (int i = 0; i < childCount; i++) {
-            view = getChildAt(i);
-            if (isEmptyView(view)) {
-                continue;
-            }
-            childViews.add(view);
-        }
+    /**
+     * Gets if the default empty and error views are drawn by a single {@link FlatStateView}
+     *
+     * @return if the default empty and error views are drawn
+     */
+    public boolean isDrawnStateViews() {
+        return mDrawnStateViews;
     }
 
-    private void hideChildView() {
-        for (View view : childViews) {
-            if (isEmptyView(view)) {
-                continue;
-            }
-            view.setVisibility(GONE);
-        }
+    /**
+     * Sets if the default empty and error views are drawn by a single {@link FlatStateView} instead of
+     * being inflated from view_empty.xml / view_error.xml. Custom views and layouts are not affected.
+     *
+     * @param drawnStateViews draw the default empty and error views
+     */
+    public void setDrawnStateViews(boolean drawnStateViews) {
+        if (mDrawnStateViews == drawnStateViews) {
+            return;
+        }
+        mDrawnStateViews = drawnStateViews;
+        if (mEmptyEntry.view instanceof FlatStateView || mEmptyEntry.pooled && isDefaultStateLayout(mEmptyEntry)) {
+            setStateView(mEmptyEntry, null, false);
+        }
+        if (mErrorEntry.view instanceof FlatStateView || mErrorEntry.pooled && isDefaultStateLayout(mErrorEntry)) {
+            setStateView(mErrorEntry, null, false);
+        }
+        if (mStateShown && (mEmptyType == TYPE_EMPTY || mEmptyType == TYPE_ERROR)) {
+            changeType();
+        }
+    }
+
+    /**
+     * Gets if the default loading view is a shimmering {@link SkeletonView}
+     *
+     * @return if the loading state shows a skeleton
+     */
+    public boolean isSkeletonLoading() {
+        return mSkeletonLoading;
+    }
+
+    /**
+     * Sets if the default loading view is a shimmering {@link SkeletonView} shaped after the content
+     * instead of the spinner of view_loading.xml. A custom loading view or layout is not affected.
+     *
+     * @param skeletonLoading show a skeleton while loading
+     */
+    public void setSkeletonLoading(boolean skeletonLoading) {
+        if (mSkeletonLoading == skeletonLoading) {
+            return;
+        }
+        mSkeletonLoading = skeletonLoading;
+        if (mLoadingEntry.view instanceof SkeletonView || mLoadingEntry.pooled && isDefaultStateLayout(mLoadingEntry)) {
+            setStateView(mLoadingEntry, null, false);
+        }
+        if (mStateShown && mEmptyType == TYPE_LOADING) {
+            changeType();
+        }
+    }
+
+    private void removeStateView(View view) {
+        if (view != null && view.getParent() != null) {
+            ((ViewGroup) view.getParent()).removeView(view);
+        }
+    }
+
+    /**
+     * Replaces the view of a state, giving the previous one back to the pool or removing it
+     */
+    private void setStateView(StateEntry entry, View view, boolean pooled) {
+        if (entry == mAnimatedEntry) {
+            setAnimatedView(null, null);
+        }
+        if (entry.view != null && entry.view == mProgressHost) {
+            mProgressHost = null;
+            mProgressView = null;
+        }
+        releaseStateView(entry);
+        if (entry.view != null) {
+            if (entry.view == mShownStateView) {
+                mShownStateView = null;
+            }
+            removeStateView(entry.view);
+            entry.binder.reset();
+        }
+        entry.view = view;
+        entry.added = false;
+        entry.pooled = pooled;
+        entry.pooledLayoutRes = pooled ? entry.layoutRes : 0;
+    }
+
+    private void addChildView(View view) {
+        int index = childViews.size();
+        childViews.add(view);
+        if (mChildVisibility.length <= index) {
+            int[] visibility = new int[index * 2];
+            System.arraycopy(mChildVisibility, 0, visibility, 0, index);
+            mChildVisibility = visibility;
+        }
+        mChildVisibility[index] = view.getVisibility();
+        if (mContentHidden && !mContentSuppressed) {
+            // added while a state is shown, keep it hidden until hide()
+            view.setVisibility(GONE);
+        }
+    }
+
+    private void removeChildView(View view) {
+        int index = childViews.indexOf(view);
+        if (index < 0) {
+            return;
+        }
+        if (mContentHidden && !mContentSuppressed) {
+            view.setVisibility(mChildVisibility[index]);
+        }
+        childViews.remove(index);
+        System.arraycopy(mChildVisibility, index + 1, mChildVisibility, index, childViews.size() - index);
+    }
+
+    /**
+     * 记录内容View原来的可见性并隐藏，已经隐藏时什么都不做
+     */
+    private void hideChildView() {
+        if (mContentHidden) {
+            return;
+        }
+        mContentHidden = true;
+        // the accessibility tree lists every VISIBLE child, the content is hidden for real while a service is on
+        if (mSuppressContent && !isAccessibilityEnabled()) {
+            // one flag instead of a visibility change per child, see onMeasure/onLayout/dispatchDraw
+            mContentSuppressed = true;
+            if (hasFocus() && (mEmptyRelativeLayout == null || !mEmptyRelativeLayout.hasFocus())) {
+                findFocus().clearFocus();
+            }
+            requestLayout();
+            invalidate();
+            return;
+        }
+        for (int i = 0, size = childViews.size(); i < size; i++) {
+            View view = childViews.get(i);
+            mChildVisibility[i] = view.getVisibility();
+            view.setVisibility(GONE);
+        }
+    }
+
+    private boolean isAccessibilityEnabled() {
+        AccessibilityManager manager = (AccessibilityManager) getContext().getSystemService(Context.ACCESSIBILITY_SERVICE);
+        return manager != null && manager.isEnabled();
     }
 
     /**
@@ -539,18 +1388,33 @@ public class EmptyLayout extends LinearLayout {
      * @return
      */
     private boolean isEmptyView(View view) {
-        if ((view == null || mEmptyRelativeLayout == view || view == mLoadingView || view == mEmptyView || view == mErrorView)) {
+        if (view == null || mEmptyRelativeLayout == view) {
             return true;
         }
+        for (int i = 0, size = mStates.size(); i < size; i++) {
+            if (mStates.valueAt(i).view == view) {
+                return true;
+            }
+        }
         return false;
     }
 
+    /**
+     * 恢复内容View在hideChildView()之前的可见性
+     */
     private void showChildView() {
-        for (View view : childViews) {
-            if (isEmptyView(view)) {
-                continue;
-            }
-            view.setVisibility(VISIBLE);
+        if (!mContentHidden) {
+            return;
+        }
+        mContentHidden = false;
+        if (mContentSuppressed) {
+            mContentSuppressed = false;
+            requestLayout();
+            invalidate();
+            return;
+        }
+        for (int i = 0, size = childViews.size(); i < size; i++) {
+            childViews.get(i).setVisibility(mChildVisibility[i]);
         }
     }
 
@@ -558,17 +1422,12 @@ public class EmptyLayout extends LinearLayout {
      * 隐藏EmptyView
      */
     private void hideAllView() {
-        if (mLoadingView != null) {
-            mLoadingView.setVisibility(GONE);
-        }
-
-        if (mEmptyView != null) {
-            mEmptyView.setVisibility(GONE);
-        }
-
-        if (mErrorView != null) {
-            mErrorView.setVisibility(GONE);
+        // only the shown state view is visible, the others were hidden when it was shown
+        if (mShownStateView != null) {
+            mShownStateView.setVisibility(GONE);
+            mShownStateView = null;
         }
+        mAnimationDriver.stop();
     }
 
     /**
@@ -578,16 +1437,11 @@ public class EmptyLayout extends LinearLayout {
      * @param text
      */
     public void showError(int resId, String text) {
-        setErrorDrawable(resId);
-        setEmptyMessage(text);
-        showError();
+        requestState(TYPE_ERROR, false, true, text, resId);
     }
 
     public void showError() {
-        getChildViews();
-        hideChildView();
-        this.mEmptyType = TYPE_ERROR;
-        changeType();
+        requestState(TYPE_ERROR);
     }
 
 
@@ -598,19 +1452,11 @@ public class EmptyLayout extends LinearLayout {
      * @param text
      */
     public void showEmpty(int resId, String text) {
-
-        setEmptyDrawable(resId);
-        setEmptyMessage(text);
-        showEmpty();
+        requestState(TYPE_EMPTY, false, true, text, resId);
     }
 
     public void showEmpty() {
-
-        getChildViews();
-        hideChildView();
-        this.mEmptyType = TYPE_EMPTY;
-        changeType();
-
+        requestState(TYPE_EMPTY);
     }
 
     /**
@@ -619,227 +1465,1145 @@ public class EmptyLayout extends LinearLayout {
      * @param text
      */
     public void showLoading(String text) {
-        setLoadingMessage(text);
-        showLoading();
+        requestState(TYPE_LOADING, false, true, text, 0);
     }
 
     public void showLoading() {
-        getChildViews();
-        hideChildView();
-        this.mEmptyType = TYPE_LOADING;
-        changeType();
+        requestState(TYPE_LOADING);
     }
 
     /**
-     * 隐藏EmptyLayout
+     * Shows the loading state, runs the task on the executor and shows its result, see
+     * {@link #bind(ExecutorService, Callable, ResultClassifier, OnLoadListener)}
      */
-    public void hide() {
-        showChildView();
-        hideAllView();
+    public <T> void bind(ExecutorService executor, Callable<T> task, OnLoadListener<T> listener) {
+        bind(executor, task, null, listener);
     }
 
+    /**
+     * Shows the loading state, runs the task on the executor and shows its result: the state returned by
+     * the classifier, or the error state when the task throws. The task is interrupted when the EmptyLayout
+     * is detached, when another load is bound or with {@link #cancelLoad()}; the loading state stays shown
+     * and the listener is told with {@link OnLoadListener#onCancelled()}. An executor rejecting the task
+     * shows the error state with the RejectedExecutionException.
+     *
+     * @param executor   runs the task
+     * @param task       the load
+     * @param classifier decides the state of the result, null for empty on null or an empty collection,
+     *                   map, text or array, content otherwise
+     * @param listener   receives the result on the main thread, may be null
+     */
+    public <T> void bind(ExecutorService executor, Callable<T> task, ResultClassifier<? super T> classifier,
+                         OnLoadListener<T> listener) {
+        LoadBinding<T> binding = startLoad(classifier, listener);
+        binding.start(executor, task);
+    }
 
-    private void changeType() {
+    /**
+     * Shows the loading state, starts the loader and shows its result, see
+     * {@link #bind(Loader, ResultClassifier, OnLoadListener)}
+     */
+    public <T> void bind(Loader<T> loader, OnLoadListener<T> listener) {
+        bind(loader, null, listener);
+    }
 
-        setDefaultValues();
-        refreshMessages();
+    /**
+     * Shows the loading state, starts the loader and shows its result, like
+     * {@link #bind(ExecutorService, Callable, ResultClassifier, OnLoadListener)}. The loader is cancelled
+     * when the EmptyLayout is detached, when another load is bound or with {@link #cancelLoad()}.
+     */
+    public <T> void bind(Loader<T> loader, ResultClassifier<? super T> classifier, OnLoadListener<T> listener) {
+        LoadBinding<T> binding = startLoad(classifier, listener);
+        binding.start(loader);
+    }
 
-        // insert views in the root view
-        if (!mViewsAdded) {
-            RelativeLayout.LayoutParams lp = new RelativeLayout.LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT);
-            lp.addRule(RelativeLayout.CENTER_IN_PARENT);
-            mEmptyRelativeLayout = new RelativeLayout(getContext());
-            mEmptyRelativeLayout.setGravity(Gravity.CENTER);
-            mEmptyRelativeLayout.setLayoutParams(lp);
-            mViewsAdded = true;
-            mEmptyRelativeLayout.setVisibility(VISIBLE);
-            addView(mEmptyRelativeLayout);
+    private <T> LoadBinding<T> startLoad(ResultClassifier<? super T> classifier, OnLoadListener<T> listener) {
+        cancelLoad();
+        LoadBinding<T> binding = new LoadBinding<>(this, mMainHandler, classifier, listener);
+        mLoadBinding = binding;
+        showLoading();
+        return binding;
+    }
+
+    /**
+     * Cancels the bound load, if any, and calls {@link OnLoadListener#onCancelled()}. The shown state does
+     * not change.
+     */
+    public void cancelLoad() {
+        if (mLoadBinding != null) {
+            LoadBinding<?> binding = mLoadBinding;
+            mLoadBinding = null;
+            binding.cancel();
         }
+    }
+
+    /**
+     * Gets if a bound load is running
+     */
+    public boolean isLoadBound() {
+        return mLoadBinding != null;
+    }
+
+    /**
+     * Shows the classified result of a bound load
+     */
+    void finishLoad(LoadBinding<?> binding, int type) {
+        if (binding != mLoadBinding) {
+            return;
+        }
+        mLoadBinding = null;
+        if (type == TYPE_CONTENT) {
+            hide();
+        } else {
+            showState(type);
+        }
+    }
+
+    /**
+     * Shows a determinate progress in the loading state, see {@link #setLoadingProgress(float, long, long, String)}
+     *
+     * @param fraction the progress, from 0 to 1
+     */
+    public void setLoadingProgress(float fraction) {
+        setLoadingProgress(fraction, 0, 0, null);
+    }
 
-        switch (mEmptyType) {
+    /**
+     * Shows a determinate progress in bytes in the loading state, see {@link #setLoadingProgress(float, long, long, String)}
+     *
+     * @param bytes      the bytes done
+     * @param totalBytes the total bytes
+     * @param eta        the remaining time text, null for none
+     */
+    public void setLoadingProgress(long bytes, long totalBytes, String eta) {
+        setLoadingProgress(totalBytes > 0 ? (float) bytes / totalBytes : 0f, bytes, totalBytes, eta);
+    }
+
+    /**
+     * Shows a determinate progress in the loading state. It can be called for every update: unlike
+     * {@link #showLoading(String)} it does not run a state transition nor a layout pass, only the progress
+     * indicator is redrawn, at most once per frame and only while it can be seen. The default loading
+     * layout shows it below the message, a custom one needs a {@link LoadingProgressView} with the id
+     * R.id.loadingProgress.
+     *
+     * @param fraction   the progress, from 0 to 1
+     * @param bytes      the bytes done, shown when totalBytes is positive
+     * @param totalBytes the total bytes, 0 to show the percentage only
+     * @param eta        the remaining time text, null for none
+     */
+    public void setLoadingProgress(float fraction, long bytes, long totalBytes, String eta) {
+        mLoadingProgress = Math.max(fraction, 0f);
+        mLoadingProgressBytes = bytes;
+        mLoadingProgressTotalBytes = totalBytes;
+        mLoadingProgressEta = eta;
+        if (mStateShown && mEmptyType == TYPE_LOADING) {
+            bindLoadingProgress(mLoadingEntry.view);
+        }
+    }
+
+    /**
+     * Hides the determinate progress of the loading state
+     */
+    public void clearLoadingProgress() {
+        mLoadingProgress = -1;
+        if (mStateShown && mEmptyType == TYPE_LOADING) {
+            bindLoadingProgress(mLoadingEntry.view);
+        }
+    }
+
+    /**
+     * @return the progress of the loading state, from 0 to 1, or -1 if there is none
+     */
+    public float getLoadingProgress() {
+        return mLoadingProgress;
+    }
+
+    private void bindLoadingProgress(View loadingView) {
+        if (loadingView == null) {
+            return;
+        }
+        boolean show = mLoadingProgress >= 0;
+        if (loadingView != mProgressHost) {
+            View view = loadingView.findViewById(R.id.loadingProgress);
+            if (view == null && show) {
+                ViewStub stub = (ViewStub) loadingView.findViewById(R.id.loadingProgressViewStub);
+                view = stub != null ? stub.inflate() : null;
+            }
+            if (!(view instanceof LoadingProgressView)) {
+                return;
+            }
+            mProgressView = (LoadingProgressView) view;
+            mProgressHost = loadingView;
+        }
+        int visibility = show ? VISIBLE : GONE;
+        if (mProgressView.getVisibility() != visibility) {
+            // only when the progress appears or disappears
+            mProgressView.setVisibility(visibility);
+        }
+        if (show) {
+            mProgressView.setProgress(mLoadingProgress, mLoadingProgressBytes, mLoadingProgressTotalBytes,
+                    mLoadingProgressEta);
+        }
+    }
+
+    /**
+     * 隐藏EmptyLayout
+     */
+    public void hide() {
+        requestState(STATE_HIDDEN);
+    }
+
+    /**
+     * 切换状态。合并模式下只记录最新的请求，在下一帧由主线程应用
+     */
+    private void requestState(int state) {
+        requestState(state, false, false, null, 0);
+    }
+
+    /**
+     * @param checkType  check on the main thread that the state is registered
+     * @param hasContent set the message and icon of the state with it
+     */
+    private void requestState(int state, boolean checkType, boolean hasContent, String message, int drawable) {
+        if (!mCoalesceTransitions) {
+            if (checkType) getStateEntry(state);
+            if (hasContent) setStateContent(state, message, drawable);
+            applyState(state);
+            return;
+        }
+        // a single reference, the main thread never sees the state without its message and icon
+        StateRequest request = new StateRequest(state, checkType, hasContent, message, drawable);
+        if (mPendingRequest.getAndSet(request) == null) {
+            scheduleApply();
+        }
+    }
+
+    private void setStateContent(int state, String message, int drawable) {
+        switch (state) {
+            case TYPE_LOADING:
+                setLoadingMessage(message);
+                break;
             case TYPE_EMPTY:
-                if (!mEmptyViewAdded) {
-                    if (mEmptyView != null) mEmptyRelativeLayout.addView(mEmptyView);
-                    mEmptyViewAdded = true;
-                }
+                setEmptyDrawable(drawable);
+                setEmptyMessage(message);
                 break;
             case TYPE_ERROR:
-                if (!mErrorViewAdded) {
-                    if (mErrorView != null) mEmptyRelativeLayout.addView(mErrorView);
-                    mErrorViewAdded = true;
-                }
-                break;
-            case TYPE_LOADING:
-                if (!mLoadingViewAdded) {
-                    if (mLoadingView != null) mEmptyRelativeLayout.addView(mLoadingView);
-                    mLoadingViewAdded = true;
-                }
+                setErrorDrawable(drawable);
+                setErrorMessage(message);
                 break;
             default:
-                break;
+                throw new RuntimeException("EmptyLayout wrong type!");
+        }
+    }
+
+    private void scheduleApply() {
+        if (Looper.myLooper() == Looper.getMainLooper()
+                && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            if (mApplyFrameCallback == null) {
+                mApplyFrameCallback = new Choreographer.FrameCallback() {
+                    @Override
+                    public void doFrame(long frameTimeNanos) {
+                        applyPendingState();
+                    }
+                };
+            }
+            Choreographer.getInstance().postFrameCallback(mApplyFrameCallback);
+        } else {
+            mMainHandler.post(mScheduleRunnable);
         }
+    }
 
-        // change empty type
-        loadingAnimationView = null;
-        if (mLoadingAnimationViewId > 0) {
-            loadingAnimationView = findViewById(mLoadingAnimationViewId);
+    private void applyPendingState() {
+        StateRequest request = mPendingRequest.getAndSet(null);
+        if (request == null) {
+            return;
         }
-        switch (mEmptyType) {
-            case TYPE_EMPTY:
-                if (mEmptyView != null) mEmptyView.setVisibility(View.VISIBLE);
-                if (mErrorView != null) mErrorView.setVisibility(View.GONE);
-                if (mLoadingView != null) {
-                    mLoadingView.setVisibility(View.GONE);
-                    if (loadingAnimationView != null && loadingAnimationView.getAnimation() != null)
-                        loadingAnimationView.getAnimation().cancel();
+        if (request.checkType) {
+            // thrown on the main thread for a type requested from another one
+            getStateEntry(request.state);
+        }
+        if (request.hasContent) {
+            setStateContent(request.state, request.message, request.drawable);
+        }
+        applyState(request.state);
+    }
+
+    /**
+     * 应用状态，加载中状态遵循延迟显示和最短显示时间
+     */
+    private void applyState(int state) {
+        boolean loadingShown = mStateShown && mEmptyType == TYPE_LOADING;
+        if (state == TYPE_LOADING && mDeferredState == TYPE_LOADING) {
+            // still waiting for the show delay, keep the running delay
+            return;
+        }
+        mMainHandler.removeCallbacks(mDeferredStateRunnable);
+        mDeferredState = STATE_NONE;
+        mStateOnAttach = STATE_NONE;
+        if (state == TYPE_LOADING && !loadingShown && mLoadingShowDelay > 0) {
+            deferState(state, mLoadingShowDelay);
+            return;
+        }
+        if (state != TYPE_LOADING && loadingShown && mLoadingMinDuration > 0) {
+            long shownFor = SystemClock.uptimeMillis() - mLoadingShownAt;
+            if (shownFor < mLoadingMinDuration) {
+                deferState(state, mLoadingMinDuration - shownFor);
+                return;
+            }
+        }
+        applyStateNow(state);
+    }
+
+    private void deferState(int state, long delayMillis) {
+        if (getWindowToken() == null) {
+            // the delay starts when attached
+            mStateOnAttach = state;
+            return;
+        }
+        mDeferredState = state;
+        mMainHandler.postDelayed(mDeferredStateRunnable, delayMillis);
+    }
+
+    private void applyStateNow(int state) {
+        if (state != STATE_HIDDEN && mStates.get(state) == null) {
+            // unregistered while the transition was pending
+            return;
+        }
+        if (state == TYPE_LOADING && !(mStateShown && mEmptyType == TYPE_LOADING)) {
+            mLoadingShownAt = SystemClock.uptimeMillis();
+        }
+        // before the views are bound, so that the error message shows the countdown
+        mRetryScheduler.onStateShown(state);
+        if (state == STATE_HIDDEN) {
+            mStateShown = false;
+            showChildView();
+            hideAllView();
+            if (mContainerInOverlay) {
+                removeStateView(mEmptyRelativeLayout);
+                mContainerInOverlay = false;
+            }
+            releaseStateViews();
+            detachStateContainer();
+        } else {
+            if (isOverlayState(state)) {
+                // the content stays laid out under the overlay
+                showChildView();
+            } else {
+                hideChildView();
+            }
+            this.mEmptyType = state;
+            this.mStateShown = true;
+            changeType();
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        // the state views were given back to the pool on detach, take them again
+        if (mStateShown && getStateView(mEmptyType) == null) {
+            changeType();
+        }
+        if (mStateOnAttach != STATE_NONE) {
+            int state = mStateOnAttach;
+            mStateOnAttach = STATE_NONE;
+            applyState(state);
+        }
+        mAnimationDriver.update();
+        mRetryScheduler.update();
+        registerTrimCallbacks(true);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        // nobody sees the result anymore
+        cancelLoad();
+        mRetryScheduler.pause();
+        // a show delay or minimum loading duration must not show a state once detached, it is shown when
+        // attached again
+        mMainHandler.removeCallbacks(mDeferredStateRunnable);
+        mStateOnAttach = mDeferredState;
+        mDeferredState = STATE_NONE;
+        registerTrimCallbacks(false);
+        // not a child anymore, it would not be told the window is gone
+        removeDetachedStateContainer();
+        releaseStateViews();
+        mAnimationDriver.update();
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        // may be called by the View constructor, before the fields are initialized
+        if (mAnimationDriver != null) {
+            mAnimationDriver.update();
+            mRetryScheduler.update();
+        }
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        mAnimationDriver.update();
+        mRetryScheduler.update();
+    }
+
+    private View getStateView(int type) {
+        StateEntry entry = mStates.get(type);
+        return entry != null ? entry.view : null;
+    }
+
+    /**
+     * Adds or removes this EmptyLayout from the ones trimmed by the shared {@link ComponentCallbacks2},
+     * registered once with the application
+     */
+    private void registerTrimCallbacks(boolean register) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+            return;
+        }
+        if (!register) {
+            sTrimmedLayouts.remove(this);
+            return;
+        }
+        sTrimmedLayouts.add(this);
+        if (sTrimCallbacks == null) {
+            sTrimCallbacks = new ComponentCallbacks2() {
+                @Override
+                public void onTrimMemory(int level) {
+                    trimAttachedLayouts(level);
                 }
+
+                @Override
+                public void onConfigurationChanged(Configuration newConfig) {
+                }
+
+                @Override
+                public void onLowMemory() {
+                    trimAttachedLayouts(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+                }
+            };
+            getContext().getApplicationContext().registerComponentCallbacks(sTrimCallbacks);
+        }
+    }
+
+    /**
+     * Trims the state views of every attached EmptyLayout, then the shared caches once
+     */
+    private static void trimAttachedLayouts(int level) {
+        // copied, a trimmed layout may be detached meanwhile
+        for (EmptyLayout layout : new ArrayList<>(sTrimmedLayouts)) {
+            layout.trimStateViews(level);
+        }
+        trimSharedCaches(level);
+    }
+
+    /**
+     * Releases memory for a {@link ComponentCallbacks2} trim level, called by itself while attached.
+     * When memory runs low the views of the states not shown are dropped and inflated again on next use,
+     * and the shared {@link StateViewPool} is trimmed. Custom state views set with setXView are kept.
+     *
+     * @param level the trim level
+     */
+    public void trimMemory(int level) {
+        trimStateViews(level);
+        trimSharedCaches(level);
+    }
+
+    private void trimStateViews(int level) {
+        if (level < ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            return;
+        }
+        for (int i = 0, size = mStates.size(); i < size; i++) {
+            StateEntry entry = mStates.valueAt(i);
+            if (entry.view != null && !(mStateShown && entry.view == mShownStateView) && isRecreatable(entry)) {
+                StateViewPool.recordTrimmed(entry.view);
+                // dropped, not given back to the pool
+                entry.pooled = false;
+                setStateView(entry, null, false);
+            }
+        }
+    }
+
+    private static void trimSharedCaches(int level) {
+        if (level < ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            return;
+        }
+        StateViewPool.trimMemory(level);
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            StateDrawableCache.invalidate();
+        }
+    }
+
+    /**
+     * Gets if the view of a state can be created again when dropped: inflated or drawn, not set by the app
+     */
+    private static boolean isRecreatable(StateEntry entry) {
+        return entry.pooled || entry.view instanceof FlatStateView || entry.view instanceof SkeletonView;
+    }
+
+    /**
+     * Gets the number of state views held by this EmptyLayout, shown or not
+     */
+    public int getRetainedStateViewCount() {
+        int count = 0;
+        for (int i = 0, size = mStates.size(); i < size; i++) {
+            if (mStates.valueAt(i).view != null) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Gets the estimated memory held by the state views of this EmptyLayout, see {@link StateViewPool#getTrimmedBytes()}
+     */
+    public long getRetainedStateViewBytes() {
+        long bytes = 0;
+        for (int i = 0, size = mStates.size(); i < size; i++) {
+            View view = mStates.valueAt(i).view;
+            if (view != null) bytes += StateViewPool.estimateBytes(view);
+        }
+        return bytes;
+    }
+
+    /**
+     * 把从StateViewPool取出的状态View还回去
+     */
+    private void releaseStateViews() {
+        for (int i = 0, size = mStates.size(); i < size; i++) {
+            releaseStateView(mStates.valueAt(i));
+        }
+    }
+
+    /**
+     * Puts the message and icon of the default layout back, as set in view_loading.xml, view_empty.xml and
+     * view_error.xml
+     */
+    private static void recycleStateView(StateEntry entry) {
+        switch (entry.type) {
+            case TYPE_EMPTY:
+                entry.binder.recycle(R.string.empty_message, R.drawable.ic_empty);
                 break;
             case TYPE_ERROR:
-                if (mEmptyView != null) mEmptyView.setVisibility(View.GONE);
-                if (mErrorView != null) mErrorView.setVisibility(View.VISIBLE);
-                if (mLoadingView != null) {
-                    mLoadingView.setVisibility(View.GONE);
-                    if (loadingAnimationView != null && loadingAnimationView.getAnimation() != null)
-                        loadingAnimationView.getAnimation().cancel();
-                }
+                entry.binder.recycle(R.string.error_message, R.drawable.ic_error);
                 break;
             case TYPE_LOADING:
-                if (mEmptyView != null) mEmptyView.setVisibility(View.GONE);
-                if (mErrorView != null) mErrorView.setVisibility(View.GONE);
-                if (mLoadingView != null) {
-                    mLoadingView.setVisibility(View.VISIBLE);
-                    if (mLoadingAnimation != null && loadingAnimationView != null) {
-                        loadingAnimationView.startAnimation(mLoadingAnimation);
-                    } else if (loadingAnimationView != null) {
-                        loadingAnimationView.startAnimation(getRotateAnimation());
-                    }
-                }
+                entry.binder.recycle(R.string.loading_message, 0);
                 break;
             default:
+                entry.binder.recycle(0, 0);
                 break;
         }
     }
 
-    private void refreshMessages() {
-        switch (this.mEmptyType) {
+    private void releaseStateView(StateEntry entry) {
+        if (entry.pooled) {
+            if (entry == mAnimatedEntry) {
+                setAnimatedView(null, null);
+            }
+            if (entry.view == mShownStateView) {
+                mShownStateView = null;
+            }
+            if (entry.view == mProgressHost) {
+                mProgressHost = null;
+                mProgressView = null;
+            }
+            // the next EmptyLayout must not get the listener, texts and icon of this one
+            recycleStateView(entry);
+            StateViewPool.release(entry.pooledLayoutRes, entry.view);
+            entry.view = null;
+            entry.added = false;
+            entry.pooled = false;
+            entry.pooledLayoutRes = 0;
+        }
+    }
+
+
+    private void changeType() {
+        applyStyle();
+        StateEntry entry = getStateEntry(mEmptyType);
+        OnMetricsListener metricsListener = getEffectiveMetricsListener();
+        long startTime = 0;
+        int inflationCount = 0;
+        if (metricsListener != null) {
+            startTime = System.nanoTime();
+            inflationCount = StateViewPool.getInflationCount();
+            mLayoutRequestCount = 0;
+        }
+
+        beginTraceSection("EmptyLayout#inflate");
+        setDefaultValues(entry);
+        endTraceSection();
+        long inflatedTime = metricsListener != null ? System.nanoTime() : 0;
+
+        beginTraceSection("EmptyLayout#bind");
+        refreshMessages(entry);
+        endTraceSection();
+        long boundTime = metricsListener != null ? System.nanoTime() : 0;
+
+        beginTraceSection("EmptyLayout#attach");
+        attachStateViews(entry);
+        endTraceSection();
+
+        if (metricsListener != null) {
+            long endTime = System.nanoTime();
+            metricsListener.onTransition(this, mEmptyType, inflatedTime - startTime, boundTime - inflatedTime,
+                    endTime - boundTime, StateViewPool.getInflationCount() - inflationCount, mLayoutRequestCount);
+            if (!mFirstStateReported) {
+                mFirstStateReported = true;
+                metricsListener.onFirstState(this, mEmptyType, endTime - mCreatedTime);
+            }
+        }
+    }
+
+    private boolean isOverlayState(int state) {
+        return mLoadingOverlay && state == TYPE_LOADING
+                && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+    }
+
+    /**
+     * 把状态容器放到overlay中(覆盖在内容之上)或者作为子View添加
+     */
+    private void placeStateContainer(boolean overlay) {
+        ViewParent parent = mEmptyRelativeLayout.getParent();
+        if (overlay == mContainerInOverlay && parent != null) {
+            return;
+        }
+        if (mContainerDetached) {
+            mContainerDetached = false;
+            if (!overlay && mEmptyRelativeLayout.getWindowToken() == getWindowToken()) {
+                // back in the hierarchy as it was left by hide(), nothing is inflated nor dispatched
+                attachViewToParent(mEmptyRelativeLayout, -1, mEmptyRelativeLayout.getLayoutParams());
+                mContainerInOverlay = false;
+                requestLayout();
+                invalidate();
+                return;
+            }
+            removeDetachedView(mEmptyRelativeLayout, false);
+        }
+        removeStateView(mEmptyRelativeLayout);
+        mContainerInOverlay = overlay;
+        if (overlay) {
+            mEmptyRelativeLayout.setBackgroundColor(mLoadingOverlayColor);
+            getOverlay().add(mEmptyRelativeLayout);
+        } else {
+            mEmptyRelativeLayout.setBackgroundResource(0);
+            addView(mEmptyRelativeLayout);
+        }
+    }
+
+    /**
+     * Takes the state container out of the children after hide(), so measure, layout, draw and touch
+     * dispatch only walk the content, as if no state had ever been shown. The container stays attached to
+     * the window with its views, and is put back by placeStateContainer().
+     * <p>
+     * Without a window (e.g. a RecyclerView row bound before it is attached) the container is removed
+     * instead: a detached view would miss the attach event of the window it is shown in.
+     */
+    private void detachStateContainer() {
+        if (mEmptyRelativeLayout == null || mEmptyRelativeLayout.getParent() != this) {
+            return;
+        }
+        if (getWindowToken() == null) {
+            removeView(mEmptyRelativeLayout);
+            return;
+        }
+        View focused = mEmptyRelativeLayout.findFocus();
+        if (focused != null) {
+            focused.clearFocus();
+        }
+        mEmptyRelativeLayout.clearAnimation();
+        detachViewFromParent(mEmptyRelativeLayout);
+        mContainerDetached = true;
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * Finishes the removal of the detached state container, it then gets the detached from window event
+     * its children need (e.g. to stop their animations) like any removed view
+     */
+    private void removeDetachedStateContainer() {
+        if (mContainerDetached) {
+            mContainerDetached = false;
+            removeDetachedView(mEmptyRelativeLayout, false);
+        }
+    }
+
+    /**
+     * overlay中的View不参与布局，手动测量并铺满EmptyLayout
+     */
+    private void layoutStateOverlay() {
+        int width = getWidth();
+        int height = getHeight();
+        mEmptyRelativeLayout.measure(MeasureSpec.makeMeasureSpec(width, MeasureSpec.EXACTLY),
+                MeasureSpec.makeMeasureSpec(height, MeasureSpec.EXACTLY));
+        mEmptyRelativeLayout.layout(0, 0, width, height);
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        if (!mContentSuppressed) {
+            super.onLayout(changed, l, t, r, b);
+        } else if (isStateContainerChild()) {
+            MarginLayoutParams lp = (MarginLayoutParams) mEmptyRelativeLayout.getLayoutParams();
+            int left = getPaddingLeft() + lp.leftMargin;
+            int top = getPaddingTop() + lp.topMargin;
+            mEmptyRelativeLayout.layout(left, top, left + mEmptyRelativeLayout.getMeasuredWidth(),
+                    top + mEmptyRelativeLayout.getMeasuredHeight());
+        }
+        if (mContainerInOverlay) {
+            layoutStateOverlay();
+        }
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent ev) {
+        if (mContainerInOverlay) {
+            // the content under the overlay does not get touches, the loading view (e.g. its button) does
+            mEmptyRelativeLayout.dispatchTouchEvent(ev);
+            return true;
+        }
+        if (mContentSuppressed) {
+            // the content keeps its last position, only the state container may get touches
+            if (isStateContainerChild()) {
+                float offsetX = getScrollX() - mEmptyRelativeLayout.getLeft();
+                float offsetY = getScrollY() - mEmptyRelativeLayout.getTop();
+                ev.offsetLocation(offsetX, offsetY);
+                mEmptyRelativeLayout.dispatchTouchEvent(ev);
+                ev.offsetLocation(-offsetX, -offsetY);
+            }
+            return true;
+        }
+        return super.dispatchTouchEvent(ev);
+    }
+
+    // the suppressed content stays VISIBLE, keep focus and accessibility on the state container
+
+    @Override
+    public void addFocusables(ArrayList<View> views, int direction, int focusableMode) {
+        if (!mContentSuppressed) {
+            super.addFocusables(views, direction, focusableMode);
+        } else if (isStateContainerChild() && getDescendantFocusability() != FOCUS_BLOCK_DESCENDANTS) {
+            mEmptyRelativeLayout.addFocusables(views, direction, focusableMode);
+        }
+    }
+
+    @Override
+    protected boolean onRequestFocusInDescendants(int direction, Rect previouslyFocusedRect) {
+        if (!mContentSuppressed) {
+            return super.onRequestFocusInDescendants(direction, previouslyFocusedRect);
+        }
+        return isStateContainerChild() && mEmptyRelativeLayout.requestFocus(direction, previouslyFocusedRect);
+    }
+
+    @Override
+    public boolean onRequestSendAccessibilityEvent(View child, AccessibilityEvent event) {
+        return (!mContentSuppressed || child == mEmptyRelativeLayout) && super.onRequestSendAccessibilityEvent(child, event);
+    }
+
+    @Override
+    public boolean dispatchPopulateAccessibilityEvent(AccessibilityEvent event) {
+        if (!mContentSuppressed) {
+            return super.dispatchPopulateAccessibilityEvent(event);
+        }
+        onPopulateAccessibilityEvent(event);
+        return isStateContainerChild() && mEmptyRelativeLayout.getVisibility() == VISIBLE
+                && mEmptyRelativeLayout.dispatchPopulateAccessibilityEvent(event);
+    }
+
+    private void attachStateViews(StateEntry entry) {
+        // insert views in the root view
+        if (!mViewsAdded) {
+            RelativeLayout.LayoutParams lp = new RelativeLayout.LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT);
+            lp.addRule(RelativeLayout.CENTER_IN_PARENT);
+            mEmptyRelativeLayout = new StateContainer(getContext());
+            mEmptyRelativeLayout.setGravity(Gravity.CENTER);
+            mEmptyRelativeLayout.setLayoutParams(lp);
+            mViewsAdded = true;
+            mEmptyRelativeLayout.setVisibility(VISIBLE);
+        }
+        placeStateContainer(isOverlayState(entry.type));
+
+        View view = entry.view;
+        if (!entry.added) {
+            if (view != null) mEmptyRelativeLayout.addView(view);
+            entry.added = true;
+        }
+
+        // change empty type: only the previously shown view is visible, whatever the number of states
+        if (mShownStateView != null && mShownStateView != view) {
+            mShownStateView.setVisibility(View.GONE);
+        }
+        mShownStateView = view;
+        if (view != null) {
+            view.setVisibility(View.VISIBLE);
+        }
+        if (mContainerInOverlay) {
+            // the framework never lays out overlay children, measure them once they are added and visible
+            layoutStateOverlay();
+        }
+        if (view == null) {
+            setAnimatedView(null, null);
+            return;
+        }
+
+        int animationViewId = entry == mLoadingEntry ? getLoadingAnimationViewId(entry)
+                : entry.state != null ? entry.state.getAnimationViewId() : 0;
+        setAnimatedView(entry, animationViewId > 0 ? view.findViewById(animationViewId) : null);
+        if (loadingAnimationView == null) {
+            return;
+        }
+        if (entry == mLoadingEntry) {
+            Animatable animatable = getLoadingAnimatable();
+            if (animatable != null) {
+                mAnimationDriver.start(loadingAnimationView, animatable);
+            } else if (mLoadingAnimation != null) {
+                mAnimationDriver.start(loadingAnimationView, mLoadingAnimation);
+            } else {
+                mAnimationDriver.start(loadingAnimationView, getRotateAnimation());
+            }
+        } else if (entry.state.getAnimation() != null) {
+            mAnimationDriver.start(loadingAnimationView, entry.state.getAnimation());
+        } else {
+            mAnimationDriver.stop();
+        }
+    }
+
+    /**
+     * Sets the animated view of the shown state, stopping the animation of the previous one
+     */
+    private void setAnimatedView(StateEntry entry, View animationView) {
+        if (animationView != loadingAnimationView) {
+            mAnimationDriver.stop();
+            Object original = loadingAnimationView == null ? null : loadingAnimationView.getTag(R.id.imageViewLoading);
+            if (original != null) {
+                // the view may be pooled and reused without the animated drawable
+                ((ImageView) loadingAnimationView).setImageDrawable(original instanceof Drawable ? (Drawable) original : null);
+                loadingAnimationView.setTag(R.id.imageViewLoading, null);
+            }
+            loadingAnimationView = animationView;
+        }
+        mAnimatedEntry = animationView != null ? entry : null;
+    }
+
+    private int getLoadingAnimationViewId(StateEntry entry) {
+        return entry.pooled && isDefaultStateLayout(entry) ? R.id.imageViewLoading : mLoadingAnimationViewId;
+    }
+
+    /**
+     * 刷新状态View的文字、图片和按钮，只有变化的内容才会更新到View上
+     */
+    private void refreshMessages(StateEntry entry) {
+        View view = entry.view;
+        if (view instanceof FlatStateView && entry == mEmptyEntry) {
+            bindFlatStateView((FlatStateView) view, mEmptyMessage, mEmptyDrawable,
+                    mShowEmptyButton, mEmptyButtonText, R.string.empty_button, mEmptyButtonClickListener);
+        } else if (view instanceof FlatStateView && entry == mErrorEntry) {
+            bindFlatStateView((FlatStateView) view, getBoundErrorMessage(), mErrorDrawable,
+                    mShowErrorButton, mErrorButtonText, R.string.error_button, getBoundErrorButtonClickListener());
+        } else if (view instanceof SkeletonView && entry == mLoadingEntry) {
+            bindSkeletonView((SkeletonView) view);
+        } else if (view != null) {
+            bindStateView(entry.type, view, entry.binder, entry.pooled && isDefaultStateLayout(entry));
+        }
+        if (entry == mLoadingEntry) {
+            // also hides the progress left in a reused view
+            bindLoadingProgress(view);
+        }
+    }
+
+    /**
+     * 把状态的文字、图片和按钮绑定到状态View上
+     *
+     * @param defaultLayout if view is inflated from the default layout of the state, whose button is stubbed
+     */
+    void bindStateView(int type, View view, StateBinder binder, boolean defaultLayout) {
+        applyStyle();
+        binder.setView(view);
+        EmptyState state = getStateEntry(type).state;
+        if (state != null) {
+            if (state.getMessageViewId() > 0 && state.getMessage() != null) {
+                binder.bindMessage(state.getMessageViewId(), state.getMessage());
+                if (state.getIcon() != 0) {
+                    binder.bindIcon(state.getIcon());
+                }
+            }
+            binder.bindButton(state.getButtonStubId(), state.getButtonId(), state.isButtonShown(),
+                    state.getButtonClickListener(), state.getButtonText());
+            return;
+        }
+        switch (type) {
             case TYPE_EMPTY:
-                if (mEmptyMessageViewId > 0 && mEmptyMessage != null && mEmptyView != null) {
-                    mEmptyMessageView = ((TextView) mEmptyView.findViewById(mEmptyMessageViewId));
-                    mEmptyMessageView.setText(mEmptyMessage);
-                    setTopDrawables(mEmptyMessageView, mEmptyDrawable);
+                int emptyMessageViewId = mEmptyMessageViewId > 0 ? mEmptyMessageViewId
+                        : defaultLayout ? R.id.textViewMessage : 0;
+                if (emptyMessageViewId > 0 && mEmptyMessage != null) {
+                    binder.bindMessage(emptyMessageViewId, mEmptyMessage);
+                    binder.bindIcon(mEmptyDrawable);
+                }
+                if (defaultLayout) {
+                    binder.bindButton(R.id.buttonEmptyViewStub, mEmptyViewButtonId, mShowEmptyButton,
+                            mEmptyButtonClickListener, getButtonText(mEmptyButtonText, R.string.empty_button));
                 }
                 break;
             case TYPE_ERROR:
-                if (mErrorMessageViewId > 0 && mErrorMessage != null && mErrorView != null) {
-                    mErrorMessageView = ((TextView) mErrorView.findViewById(mErrorMessageViewId));
-                    mErrorMessageView.setText(mErrorMessage);
-                    setTopDrawables(mErrorMessageView, mErrorDrawable);
+                int errorMessageViewId = mErrorMessageViewId > 0 ? mErrorMessageViewId
+                        : defaultLayout ? R.id.textViewMessage : 0;
+                if (errorMessageViewId > 0 && mErrorMessage != null) {
+                    binder.bindMessage(errorMessageViewId, getBoundErrorMessage());
+                    binder.bindIcon(mErrorDrawable);
+                }
+                if (defaultLayout) {
+                    binder.bindButton(R.id.buttonErrorViewStub, mErrorViewButtonId, mShowErrorButton,
+                            getBoundErrorButtonClickListener(), getButtonText(mErrorButtonText, R.string.error_button));
                 }
                 break;
             case TYPE_LOADING:
-                if (mLoadingMessageViewId > 0 && mLoadingMessage != null && mLoadingView != null) {
-                    mLoadingMessageView = ((TextView) mLoadingView.findViewById(mLoadingMessageViewId));
-                    mLoadingMessageView.setText(mLoadingMessage);
+                int loadingMessageViewId = mLoadingMessageViewId > 0 ? mLoadingMessageViewId
+                        : defaultLayout ? R.id.textViewMessage : 0;
+                if (loadingMessageViewId > 0 && mLoadingMessage != null) {
+                    binder.bindMessage(loadingMessageViewId, mLoadingMessage);
+                }
+                if (defaultLayout) {
+                    binder.bindButton(R.id.buttonLoadingViewStub, mLoadingViewButtonId, mShowLoadingButton,
+                            mLoadingButtonClickListener, getButtonText(mLoadingButtonText, R.string.loading_button));
                 }
                 break;
             default:
                 throw new RuntimeException("EmptyLayout wrong type!");
+        }
+    }
+
+    /**
+     * Gets the text of a button in a default layout, the default text when none is set: a pooled view
+     * may still show the text set by another EmptyLayout
+     */
+    private CharSequence getButtonText(String buttonText, int defaultButtonText) {
+        return buttonText != null ? buttonText : getResources().getText(defaultButtonText);
+    }
+
+    /**
+     * Gets the layout resource the views of a state are inflated from
+     */
+    int getStateLayoutRes(int type) {
+        applyStyle();
+        return getStateEntry(type).layoutRes;
+    }
+
+    /**
+     * Gets if a state uses its default layout
+     */
+    boolean isDefaultStateLayout(int type) {
+        applyStyle();
+        StateEntry entry = mStates.get(type);
+        return entry != null && isDefaultStateLayout(entry);
+    }
+
+    private static boolean isDefaultStateLayout(StateEntry entry) {
+        return entry.defaultLayoutRes != 0 && entry.layoutRes == entry.defaultLayoutRes;
+    }
+
+    /**
+     * Gets the id of the animated view in the loading layout
+     */
+    int getLoadingAnimationViewIdForLayout() {
+        applyStyle();
+        return isDefaultStateLayout(mLoadingEntry) ? R.id.imageViewLoading : mLoadingAnimationViewId;
+    }
+
+    /**
+     * Gets the number of states, built-in and registered
+     */
+    int getStateCount() {
+        return mStates.size();
+    }
+
+    /**
+     * Gets the index of a state, from 0 to getStateCount() - 1, or a negative number if it does not exist
+     */
+    int indexOfState(int type) {
+        return mStates.indexOfKey(type);
+    }
 
+    private StateEntry getStateEntry(int type) {
+        StateEntry entry = mStates.get(type);
+        if (entry == null) {
+            throw new RuntimeException("EmptyLayout wrong type!");
         }
+        return entry;
     }
 
+    /**
+     * Creates a loading animation for an item of the adapters: pausing an animation (see
+     * LoadingAnimationDriver) moves its start time, a shared instance would pause every view running it
+     */
+    Animation newLoadingAnimation() {
+        applyStyle();
+        if (mLoadingAnimationRes != 0) {
+            return AnimationUtils.loadAnimation(getContext(), mLoadingAnimationRes);
+        }
+        // set as an instance, which cannot be copied
+        return mLoadingAnimation != null ? mLoadingAnimation : createRotateAnimation();
+    }
+
+    private void bindFlatStateView(FlatStateView view, String message, int drawable, boolean showButton,
+                                   String buttonText, int defaultButtonText, OnClickListener listener) {
+        view.setIcon(drawable);
+        view.setMessage(message);
+        if (showButton && listener != null) {
+            view.setButton(buttonText != null ? buttonText : getResources().getText(defaultButtonText), listener);
+        } else {
+            view.setButton(null, null);
+        }
+    }
 
-    private void setTopDrawables(TextView textView, int resId) {
-        Drawable drawable = getResources().getDrawable(resId);
-        drawable.setBounds(0, 0, drawable.getMinimumWidth(), drawable.getMinimumHeight());//必须设置图片大小，否则不显示
-        textView.setCompoundDrawables(null, drawable, null, null);
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        onThemeChanged();
     }
 
-    private void setDefaultEmptyView() {
-        if (mEmptyView == null) {
-            mEmptyView = (ViewGroup) mInflater.inflate(R.layout.view_empty, null);
-            if (!(mEmptyMessageViewId > 0)) mEmptyMessageViewId = R.id.textViewMessage;
-            if (mShowEmptyButton && mEmptyViewButtonId > 0 && mEmptyButtonClickListener != null) {
-                if (emptyViewButton == null) {
-                    ViewStub buttonEmptyViewStub = (ViewStub) mEmptyView.findViewById(R.id.buttonEmptyViewStub);
-                    buttonEmptyViewStub.inflate();
-                    emptyViewButton = mEmptyView.findViewById(mEmptyViewButtonId);
-                }
-                if (emptyViewButton != null) {
-                    emptyViewButton.setOnClickListener(mEmptyButtonClickListener);
-                    emptyViewButton.setVisibility(View.VISIBLE);
-                }
-            } else if (mEmptyViewButtonId > 0 && emptyViewButton != null) {
-                emptyViewButton.setVisibility(View.GONE);
+    /**
+     * Resolves the style and the state icons again. Call it after the theme of the context was changed in
+     * place, e.g. with Theme.applyStyle(); the icons are cached per theme, a recreated Activity needs nothing.
+     */
+    public void onThemeChanged() {
+        StateDrawableCache.invalidate();
+        EmptyLayoutStyle.invalidate();
+        for (int i = 0, size = mStates.size(); i < size; i++) {
+            StateEntry entry = mStates.valueAt(i);
+            entry.binder.invalidateIcon();
+            if (entry.view instanceof FlatStateView) {
+                ((FlatStateView) entry.view).invalidateIcon();
             }
         }
     }
 
-    private void setDefaultLoadingView() {
-        if (mLoadingView == null) {
-            mLoadingView = (ViewGroup) mInflater.inflate(R.layout.view_loading, null);
-            mLoadingAnimationViewId = R.id.imageViewLoading;
-            if (!(mLoadingMessageViewId > 0)) {
-                mLoadingMessageViewId = R.id.textViewMessage;
+    /**
+     * Shapes the skeleton after the content: a bone per visible content view, or per visible child of a
+     * content ViewGroup. The content keeps the bounds of its last layout while it is hidden.
+     */
+    private void bindSkeletonView(SkeletonView view) {
+        view.clearBones();
+        int left = getPaddingLeft();
+        int top = getPaddingTop();
+        for (int i = 0, size = childViews.size(); i < size; i++) {
+            View child = childViews.get(i);
+            int visibility = mContentHidden && !mContentSuppressed ? mChildVisibility[i] : child.getVisibility();
+            if (visibility != VISIBLE) {
+                continue;
             }
-            if (mShowLoadingButton && mLoadingViewButtonId > 0 && mLoadingButtonClickListener != null) {
-                if (loadingViewButton == null) {
-                    ViewStub buttonLoadingViewStub = (ViewStub) mLoadingView.findViewById(R.id.buttonLoadingViewStub);
-                    buttonLoadingViewStub.inflate();
-                    loadingViewButton = mLoadingView.findViewById(mLoadingViewButtonId);
-                }
-                if (loadingViewButton != null) {
-                    loadingViewButton.setOnClickListener(mLoadingButtonClickListener);
-                    loadingViewButton.setVisibility(View.VISIBLE);
+            int x = child.getLeft() - left;
+            int y = child.getTop() - top;
+            if (child instanceof ViewGroup && ((ViewGroup) child).getChildCount() > 0) {
+                ViewGroup group = (ViewGroup) child;
+                for (int j = 0, count = group.getChildCount(); j < count; j++) {
+                    View bone = group.getChildAt(j);
+                    if (bone.getVisibility() == VISIBLE) {
+                        view.addBone(x + bone.getLeft(), y + bone.getTop(), x + bone.getRight(), y + bone.getBottom());
+                    }
                 }
-            } else if (mLoadingViewButtonId > 0 && loadingViewButton != null) {
-                loadingViewButton.setVisibility(View.GONE);
+            } else {
+                view.addBone(x, y, x + child.getWidth(), y + child.getHeight());
             }
         }
     }
 
-    private void setDefaultErrorView() {
-        if (mErrorView == null) {
-            mErrorView = (ViewGroup) mInflater.inflate(R.layout.view_error, null);
-            if (!(mErrorMessageViewId > 0)) mErrorMessageViewId = R.id.textViewMessage;
-            if (mShowErrorButton && mErrorViewButtonId > 0 && mErrorButtonClickListener != null) {
-                if (errorViewButton == null) {
-                    ViewStub buttonErrorViewStub = (ViewStub) mErrorView.findViewById(R.id.buttonErrorViewStub);
-                    buttonErrorViewStub.inflate();
-                    errorViewButton = mErrorView.findViewById(mErrorViewButtonId);
-                }
-                if (errorViewButton != null) {
-                    errorViewButton.setOnClickListener(mErrorButtonClickListener);
-                    errorViewButton.setVisibility(View.VISIBLE);
-                }
-            } else if (mErrorViewButtonId > 0 && errorViewButton != null) {
-                errorViewButton.setVisibility(View.GONE);
+    /**
+     * Creates the view of a state the first time it is shown
+     */
+    private void setDefaultValues(StateEntry entry) {
+        if (entry.view != null) {
+            return;
+        }
+        if (mDrawnStateViews && (entry == mEmptyEntry || entry == mErrorEntry) && isDefaultStateLayout(entry)) {
+            entry.view = new FlatStateView(getContext());
+        } else if (mSkeletonLoading && entry == mLoadingEntry && isDefaultStateLayout(entry)) {
+            entry.view = new SkeletonView(getContext());
+        } else if (isDefaultStateLayout(entry)) {
+            // only the default layouts are shared, a custom layout is kept as the app may customise it
+            entry.view = StateViewPool.acquire(mInflater, entry.layoutRes);
+            entry.pooled = true;
+            entry.pooledLayoutRes = entry.layoutRes;
+        } else {
+            entry.view = StateViewPool.inflate(mInflater, entry.layoutRes);
+        }
+    }
+
+    /**
+     * 获取RenderThread加载动画，未开启或者系统版本不支持时返回null，使用view Animation
+     */
+    private Animatable getLoadingAnimatable() {
+        if (!mRenderThreadLoading || Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP
+                || !(loadingAnimationView instanceof ImageView)) {
+            return null;
+        }
+        ImageView imageView = (ImageView) loadingAnimationView;
+        Drawable drawable = imageView.getDrawable();
+        if (!(drawable instanceof Animatable) || imageView.getTag(R.id.imageViewLoading) == null) {
+            drawable = ContextCompat.getDrawable(getContext(), mLoadingDrawableRes);
+            if (!(drawable instanceof Animatable)) {
+                return null;
             }
+            // remember the original image, it is put back when the view is released
+            Drawable original = imageView.getDrawable();
+            imageView.setTag(R.id.imageViewLoading, original != null ? original : Boolean.FALSE);
+            imageView.setImageDrawable(drawable);
         }
+        return (Animatable) drawable;
     }
 
-    private void setDefaultValues() {
-        switch (this.mEmptyType) {
-            case TYPE_EMPTY:
-                setDefaultEmptyView();
-                break;
-            case TYPE_ERROR:
-                setDefaultErrorView();
-                break;
-            case TYPE_LOADING:
-                setDefaultLoadingView();
-                break;
-            default:
-                throw new RuntimeException("EmptyLayout wrong type!");
+    private Animation getRotateAnimation() {
+        if (mRotateAnimation == null) {
+            mRotateAnimation = createRotateAnimation();
         }
+        return mRotateAnimation;
     }
 
-    private static Animation getRotateAnimation() {
-        final RotateAnimation rotateAnimation = new RotateAnimation(0, 360, Animation.RELATIVE_TO_SELF, .5f, Animation.RELATIVE_TO_SELF, .5f);
+    private static Animation createRotateAnimation() {
+        RotateAnimation rotateAnimation = new RotateAnimation(0, 360, Animation.RELATIVE_TO_SELF, .5f, Animation.RELATIVE_TO_SELF, .5f);
         rotateAnimation.setDuration(1500);
         rotateAnimation.setInterpolator(new LinearInterpolator());
         rotateAnimation.setRepeatCount(Animation.INFINITE);
         return rotateAnimation;
     }
 
+    /**
+     * A coalesced state request, immutable so that it is published to the main thread as a whole
+     */
+    private static final class StateRequest {
+        final int state;
+        final boolean checkType;
+        final boolean hasContent;
+        final String message;
+        final int drawable;
+
+        StateRequest(int state, boolean checkType, boolean hasContent, String message, int drawable) {
+            this.state = state;
+            this.checkType = checkType;
+            this.hasContent = hasContent;
+            this.message = message;
+            this.drawable = drawable;
+        }
+    }
+
+    /**
+     * A state of the registry: its view, created the first time the state is shown, and its binder
+     */
+    private static final class StateEntry {
+        final int type;
+        final EmptyState state; // null for the built-in states, which are configured by the setters of EmptyLayout
+        final int defaultLayoutRes;
+        final StateBinder binder = new StateBinder();
+        int layoutRes; // 0 until resolved from the style
+        int pooledLayoutRes; // the layout the pooled view was inflated from
+        View view;
+        boolean added; // added to mEmptyRelativeLayout
+        boolean pooled; // taken from StateViewPool, must be given back
+
+        StateEntry(int type, EmptyState state, int defaultLayoutRes) {
+            this.type = type;
+            this.state = state;
+            this.defaultLayoutRes = defaultLayoutRes;
+        }
+    }
 }
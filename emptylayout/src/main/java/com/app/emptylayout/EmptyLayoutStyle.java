@@ -0,0 +1,155 @@
+package com.app.emptylayout;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.util.AttributeSet;
+import android.util.SparseArray;
+
+import java.util.Arrays;
+import java.util.WeakHashMap;
+
+/**
+ * The resolved EmptyLayout attributes (see R.styleable.EmptyLayout) of a theme and style.
+ * <p>
+ * It is immutable and shared by reference by every EmptyLayout created with the same theme and style
+ * attribute, so the attributes and the default messages are only resolved once and only when a state
+ * is first shown. Must only be used from the main thread.
+ */
+final class EmptyLayoutStyle {
+
+    private static final WeakHashMap<Resources.Theme, SparseArray<EmptyLayoutStyle>> sStyles = new WeakHashMap<>();
+
+    final String loadingMessage;
+    final String emptyMessage;
+    final String errorMessage;
+    final int emptyDrawable;
+    final int errorDrawable;
+    final int loadingLayoutRes;
+    final int emptyLayoutRes;
+    final int errorLayoutRes;
+    final int loadingAnimationRes; // 0 for the default rotation
+    final String loadingButtonText;
+    final String emptyButtonText;
+    final String errorButtonText;
+    final boolean showLoadingButton;
+    final boolean showEmptyButton;
+    final boolean showErrorButton;
+    final int loadingButtonId;
+    final int emptyButtonId;
+    final int errorButtonId;
+
+    /**
+     * @param a        the resolved attributes
+     * @param fallback attributes used where a has no value, may be null
+     */
+    private EmptyLayoutStyle(Resources res, TypedArray a, TypedArray fallback) {
+        loadingMessage = getString(pick(a, fallback, R.styleable.EmptyLayout_el_loadingMessage),
+                R.styleable.EmptyLayout_el_loadingMessage, res, R.string.loading_message);
+        emptyMessage = getString(pick(a, fallback, R.styleable.EmptyLayout_el_emptyMessage),
+                R.styleable.EmptyLayout_el_emptyMessage, res, R.string.empty_message);
+        errorMessage = getString(pick(a, fallback, R.styleable.EmptyLayout_el_errorMessage),
+                R.styleable.EmptyLayout_el_errorMessage, res, R.string.error_message);
+        emptyDrawable = pick(a, fallback, R.styleable.EmptyLayout_el_emptyDrawable)
+                .getResourceId(R.styleable.EmptyLayout_el_emptyDrawable, R.drawable.ic_empty);
+        errorDrawable = pick(a, fallback, R.styleable.EmptyLayout_el_errorDrawable)
+                .getResourceId(R.styleable.EmptyLayout_el_errorDrawable, R.drawable.ic_error);
+        loadingLayoutRes = pick(a, fallback, R.styleable.EmptyLayout_el_loadingLayout)
+                .getResourceId(R.styleable.EmptyLayout_el_loadingLayout, R.layout.view_loading);
+        emptyLayoutRes = pick(a, fallback, R.styleable.EmptyLayout_el_emptyLayout)
+                .getResourceId(R.styleable.EmptyLayout_el_emptyLayout, R.layout.view_empty);
+        errorLayoutRes = pick(a, fallback, R.styleable.EmptyLayout_el_errorLayout)
+                .getResourceId(R.styleable.EmptyLayout_el_errorLayout, R.layout.view_error);
+        loadingAnimationRes = pick(a, fallback, R.styleable.EmptyLayout_el_loadingAnimation)
+                .getResourceId(R.styleable.EmptyLayout_el_loadingAnimation, 0);
+        loadingButtonText = pick(a, fallback, R.styleable.EmptyLayout_el_loadingButtonText)
+                .getString(R.styleable.EmptyLayout_el_loadingButtonText);
+        emptyButtonText = pick(a, fallback, R.styleable.EmptyLayout_el_emptyButtonText)
+                .getString(R.styleable.EmptyLayout_el_emptyButtonText);
+        errorButtonText = pick(a, fallback, R.styleable.EmptyLayout_el_errorButtonText)
+                .getString(R.styleable.EmptyLayout_el_errorButtonText);
+        showLoadingButton = pick(a, fallback, R.styleable.EmptyLayout_el_showLoadingButton)
+                .getBoolean(R.styleable.EmptyLayout_el_showLoadingButton, true);
+        showEmptyButton = pick(a, fallback, R.styleable.EmptyLayout_el_showEmptyButton)
+                .getBoolean(R.styleable.EmptyLayout_el_showEmptyButton, true);
+        showErrorButton = pick(a, fallback, R.styleable.EmptyLayout_el_showErrorButton)
+                .getBoolean(R.styleable.EmptyLayout_el_showErrorButton, true);
+        loadingButtonId = pick(a, fallback, R.styleable.EmptyLayout_el_loadingButtonId)
+                .getResourceId(R.styleable.EmptyLayout_el_loadingButtonId, R.id.buttonLoading);
+        emptyButtonId = pick(a, fallback, R.styleable.EmptyLayout_el_emptyButtonId)
+                .getResourceId(R.styleable.EmptyLayout_el_emptyButtonId, R.id.buttonEmpty);
+        errorButtonId = pick(a, fallback, R.styleable.EmptyLayout_el_errorButtonId)
+                .getResourceId(R.styleable.EmptyLayout_el_errorButtonId, R.id.buttonError);
+    }
+
+    private static TypedArray pick(TypedArray a, TypedArray fallback, int index) {
+        return fallback == null || a.hasValue(index) ? a : fallback;
+    }
+
+    private static String getString(TypedArray a, int index, Resources res, int defaultRes) {
+        String value = a.getString(index);
+        return value != null ? value : res.getString(defaultRes);
+    }
+
+    /**
+     * Gets the shared style of a theme, resolving it on first use
+     *
+     * @param context  the context of the EmptyLayout
+     * @param styleRes the style set with the style attribute in the layout, 0 for none
+     */
+    static EmptyLayoutStyle obtain(Context context, int styleRes) {
+        Resources.Theme theme = context.getTheme();
+        SparseArray<EmptyLayoutStyle> styles = sStyles.get(theme);
+        if (styles == null) {
+            styles = new SparseArray<>();
+            sStyles.put(theme, styles);
+        }
+        EmptyLayoutStyle style = styles.get(styleRes);
+        if (style == null) {
+            // same precedence as for a layout tag: the style attribute, then the el_emptyLayoutStyle of the theme
+            TypedArray themeStyle = context.obtainStyledAttributes(null, R.styleable.EmptyLayout,
+                    R.attr.el_emptyLayoutStyle, 0);
+            if (styleRes != 0) {
+                TypedArray a = context.obtainStyledAttributes(styleRes, R.styleable.EmptyLayout);
+                style = new EmptyLayoutStyle(context.getResources(), a, themeStyle);
+                a.recycle();
+            } else {
+                style = new EmptyLayoutStyle(context.getResources(), themeStyle, null);
+            }
+            themeStyle.recycle();
+            styles.put(styleRes, style);
+        }
+        return style;
+    }
+
+    /**
+     * Drops every shared style, e.g. after a locale change. EmptyLayouts keep the values they resolved.
+     */
+    static void invalidate() {
+        sStyles.clear();
+    }
+
+    /**
+     * Resolves a style of its own for an EmptyLayout with EmptyLayout attributes in its layout tag.
+     * The attribute set is only valid in the constructor, so this cannot wait for the first state.
+     */
+    static EmptyLayoutStyle resolve(Context context, AttributeSet attrs, int defStyleAttr) {
+        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.EmptyLayout, defStyleAttr, 0);
+        EmptyLayoutStyle style = new EmptyLayoutStyle(context.getResources(), a, null);
+        a.recycle();
+        return style;
+    }
+
+    /**
+     * Gets if an attribute set contains EmptyLayout attributes
+     */
+    static boolean hasStyleAttributes(AttributeSet attrs) {
+        for (int i = attrs.getAttributeCount() - 1; i >= 0; i--) {
+            // the styleable array is sorted by attribute id
+            if (Arrays.binarySearch(R.styleable.EmptyLayout, attrs.getAttributeNameResource(i)) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
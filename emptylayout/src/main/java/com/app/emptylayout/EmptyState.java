@@ -0,0 +1,139 @@
+package com.app.emptylayout;
+
+import android.view.View;
+import android.view.animation.Animation;
+
+/**
+ * A state of its own registered with {@link EmptyLayout#registerState(int, EmptyState)}, e.g. offline,
+ * permission denied or no search results, shown with {@link EmptyLayout#showState(int)}.
+ * <p>
+ * The view of the state is inflated from its layout the first time the state is shown and is kept by the
+ * EmptyLayout, like the views of custom layouts of the built-in states. An EmptyState only describes the state,
+ * the same instance can be registered with many EmptyLayouts. Changes are bound the next time the
+ * state is shown.
+ */
+public class EmptyState {
+
+    private final int mLayoutRes;
+
+    private int mMessageViewId;
+    private String mMessage;
+    private int mIcon;
+
+    private int mButtonId;
+    private int mButtonStubId;
+    private boolean mShowButton = true;
+    private String mButtonText;
+    private View.OnClickListener mButtonClickListener;
+
+    private int mAnimationViewId;
+    private Animation mAnimation;
+
+    /**
+     * @param layoutRes the layout the view of the state is inflated from
+     */
+    public EmptyState(int layoutRes) {
+        this.mLayoutRes = layoutRes;
+    }
+
+    public int getLayoutRes() {
+        return mLayoutRes;
+    }
+
+    public int getMessageViewId() {
+        return mMessageViewId;
+    }
+
+    /**
+     * Sets the message, shown in the TextView with the given id
+     *
+     * @param message       the message
+     * @param messageViewId the id of the TextView in the layout
+     */
+    public void setMessage(String message, int messageViewId) {
+        this.mMessage = message;
+        this.mMessageViewId = messageViewId;
+    }
+
+    public String getMessage() {
+        return mMessage;
+    }
+
+    public int getIcon() {
+        return mIcon;
+    }
+
+    /**
+     * Sets the icon, shown above the message
+     *
+     * @param icon the drawable resource, 0 for none
+     */
+    public void setIcon(int icon) {
+        this.mIcon = icon;
+    }
+
+    public int getButtonId() {
+        return mButtonId;
+    }
+
+    public int getButtonStubId() {
+        return mButtonStubId;
+    }
+
+    /**
+     * Sets the button of the state, shown when a click listener is set
+     *
+     * @param buttonId     the id of the button in the layout
+     * @param buttonStubId the id of the ViewStub holding the button, 0 if the button is not stubbed
+     */
+    public void setButtonId(int buttonId, int buttonStubId) {
+        this.mButtonId = buttonId;
+        this.mButtonStubId = buttonStubId;
+    }
+
+    public boolean isButtonShown() {
+        return mShowButton;
+    }
+
+    public void setShowButton(boolean showButton) {
+        this.mShowButton = showButton;
+    }
+
+    public String getButtonText() {
+        return mButtonText;
+    }
+
+    /**
+     * @param buttonText the text, null keeps the text of the layout
+     */
+    public void setButtonText(String buttonText) {
+        this.mButtonText = buttonText;
+    }
+
+    public View.OnClickListener getButtonClickListener() {
+        return mButtonClickListener;
+    }
+
+    public void setButtonClickListener(View.OnClickListener buttonClickListener) {
+        this.mButtonClickListener = buttonClickListener;
+    }
+
+    public int getAnimationViewId() {
+        return mAnimationViewId;
+    }
+
+    public Animation getAnimation() {
+        return mAnimation;
+    }
+
+    /**
+     * Sets an animation played while the state is shown
+     *
+     * @param animation       the animation, null for none
+     * @param animationViewId the id of the animated view in the layout
+     */
+    public void setAnimation(Animation animation, int animationViewId) {
+        this.mAnimation = animation;
+        this.mAnimationViewId = animationViewId;
+    }
+}
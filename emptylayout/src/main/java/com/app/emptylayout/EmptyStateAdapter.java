@@ -0,0 +1,582 @@
+package com.app.emptylayout;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Parcelable;
+import android.support.v7.widget.GridLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.StaggeredGridLayoutManager;
+import android.util.SparseIntArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import java.util.List;
+
+/**
+ * Wraps a RecyclerView.Adapter and shows the loading, empty and error states of an EmptyLayout as a
+ * single full-span item, instead of hiding the RecyclerView.
+ * <p>
+ * The RecyclerView stays attached, so the ViewHolders of the content go to its recycled pool and are
+ * reused when the content comes back; the pool is raised to keep every holder that was shown. The items
+ * are removed while a state is shown, so the state of the LayoutManager is saved when the state is shown
+ * and restored when the content comes back, keeping the scroll position. The state views are inflated from the layouts of the EmptyLayout
+ * and bound with its messages, drawables and button listeners; the EmptyLayout itself only serves as
+ * the configuration and does not need to be in the hierarchy.
+ * <p>
+ * For paged content a footer can be shown after the items, see {@link #setOnLoadMoreListener}. The
+ * next page is requested as soon as an item within the prefetch distance of the end is bound, so
+ * the footer spinner is normally never reached while scrolling.
+ */
+public class EmptyStateAdapter<VH extends RecyclerView.ViewHolder> extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
+
+    /**
+     * No state is shown, the items of the wrapped adapter are
+     */
+    public static final int STATE_NONE = 0;
+
+    /**
+     * No footer
+     */
+    public static final int FOOTER_NONE = 0;
+    /**
+     * More items can be loaded, the footer shows the loading animation
+     */
+    public static final int FOOTER_LOADING = 1;
+    /**
+     * All the items are loaded
+     */
+    public static final int FOOTER_END = 2;
+    /**
+     * Loading the next page failed, clicking the footer retries
+     */
+    public static final int FOOTER_ERROR = 3;
+
+    private static final int DEFAULT_PREFETCH_DISTANCE = 10;
+    // the max recycled views per view type of a RecycledViewPool
+    private static final int DEFAULT_POOL_SIZE = 5;
+
+    // view types of the state item (VIEW_TYPE_STATE + state) and of the footer, far from the view types
+    // of a usual adapter
+    private static final int VIEW_TYPE_STATE = Integer.MIN_VALUE;
+    private static final int VIEW_TYPE_FOOTER = VIEW_TYPE_STATE + STATE_NONE;
+
+    private final RecyclerView.Adapter<VH> mAdapter;
+    private final EmptyLayout mEmptyLayout;
+    private int mState = STATE_NONE;
+
+    private OnLoadMoreListener mOnLoadMoreListener;
+    private int mFooterState = FOOTER_NONE;
+    private int mPrefetchDistance = DEFAULT_PREFETCH_DISTANCE;
+    private boolean mLoadingMore;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    private RecyclerView mRecyclerView;
+    // the state of the LayoutManager when the content was replaced by a state
+    private Parcelable mContentLayoutState;
+    // the max recycled views set in the pool of mRecyclerView, by view type
+    private final SparseIntArray mPoolSizes = new SparseIntArray();
+
+    // the listener is called after the current layout pass, it will likely notify the adapter
+    private final Runnable mLoadMoreRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (mLoadingMore && mOnLoadMoreListener != null) {
+                mOnLoadMoreListener.onLoadMore();
+            }
+        }
+    };
+
+    private final View.OnClickListener mFooterClickListener = new View.OnClickListener() {
+        @Override
+        public void onClick(View v) {
+            if (mFooterState == FOOTER_ERROR) {
+                setFooterState(FOOTER_LOADING);
+                requestLoadMore();
+            }
+        }
+    };
+
+    /**
+     * Interface definition for a callback to be invoked when the next page should be loaded
+     */
+    public interface OnLoadMoreListener {
+        /**
+         * Called when the next page should be loaded. Call {@link #loadMoreComplete()},
+         * {@link #loadMoreEnd()} or {@link #loadMoreError()} once it is done.
+         */
+        void onLoadMore();
+    }
+
+    private final RecyclerView.AdapterDataObserver mObserver = new RecyclerView.AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            if (mState == STATE_NONE) {
+                notifyDataSetChanged();
+            }
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            if (mState == STATE_NONE) {
+                notifyItemRangeChanged(positionStart, itemCount);
+            }
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            if (mState == STATE_NONE) {
+                notifyItemRangeChanged(positionStart, itemCount, payload);
+            }
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            if (mState == STATE_NONE) {
+                notifyItemRangeInserted(positionStart, itemCount);
+            }
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            if (mState == STATE_NONE) {
+                notifyItemRangeRemoved(positionStart, itemCount);
+            }
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            if (mState == STATE_NONE && itemCount == 1) {
+                notifyItemMoved(fromPosition, toPosition);
+            } else if (mState == STATE_NONE) {
+                notifyDataSetChanged();
+            }
+        }
+    };
+
+    /**
+     * @param adapter     the adapter of the content
+     * @param emptyLayout the EmptyLayout whose state layouts, messages and listeners are used
+     */
+    public EmptyStateAdapter(RecyclerView.Adapter<VH> adapter, EmptyLayout emptyLayout) {
+        mAdapter = adapter;
+        mEmptyLayout = emptyLayout;
+        super.setHasStableIds(adapter.hasStableIds());
+        mAdapter.registerAdapterDataObserver(mObserver);
+    }
+
+    public RecyclerView.Adapter<VH> getWrappedAdapter() {
+        return mAdapter;
+    }
+
+    public int getState() {
+        return mState;
+    }
+
+    public void showLoading() {
+        setState(EmptyLayout.TYPE_LOADING);
+    }
+
+    public void showEmpty() {
+        setState(EmptyLayout.TYPE_EMPTY);
+    }
+
+    public void showError() {
+        setState(EmptyLayout.TYPE_ERROR);
+    }
+
+    public void hide() {
+        setState(STATE_NONE);
+    }
+
+    public OnLoadMoreListener getOnLoadMoreListener() {
+        return mOnLoadMoreListener;
+    }
+
+    /**
+     * Sets the listener loading the next page and shows the loading footer, null removes the footer
+     */
+    public void setOnLoadMoreListener(OnLoadMoreListener listener) {
+        mOnLoadMoreListener = listener;
+        mLoadingMore = false;
+        mMainHandler.removeCallbacks(mLoadMoreRunnable);
+        setFooterState(listener != null ? FOOTER_LOADING : FOOTER_NONE);
+    }
+
+    public int getPrefetchDistance() {
+        return mPrefetchDistance;
+    }
+
+    /**
+     * Sets how many items before the end the next page is requested, 10 by default
+     */
+    public void setPrefetchDistance(int prefetchDistance) {
+        mPrefetchDistance = Math.max(prefetchDistance, 0);
+    }
+
+    public int getFooterState() {
+        return mFooterState;
+    }
+
+    /**
+     * The requested page was appended to the wrapped adapter, the next one can be requested
+     */
+    public void loadMoreComplete() {
+        mLoadingMore = false;
+        setFooterState(FOOTER_LOADING);
+    }
+
+    /**
+     * There are no more pages, the footer shows the end of the list
+     */
+    public void loadMoreEnd() {
+        mLoadingMore = false;
+        setFooterState(FOOTER_END);
+    }
+
+    /**
+     * Loading the requested page failed, the footer shows the error and retries when clicked
+     */
+    public void loadMoreError() {
+        mLoadingMore = false;
+        setFooterState(FOOTER_ERROR);
+    }
+
+    /**
+     * Sets the footer shown after the items of the wrapped adapter
+     *
+     * @param footerState FOOTER_NONE, FOOTER_LOADING, FOOTER_END or FOOTER_ERROR
+     */
+    public void setFooterState(int footerState) {
+        if (footerState == mFooterState) {
+            return;
+        }
+        boolean hadFooter = hasFooter();
+        mFooterState = footerState;
+        if (mState != STATE_NONE) {
+            return;
+        }
+        int position = mAdapter.getItemCount();
+        if (hadFooter && hasFooter()) {
+            notifyItemChanged(position);
+        } else if (hadFooter) {
+            notifyItemRemoved(position);
+        } else if (hasFooter()) {
+            notifyItemInserted(position);
+        }
+    }
+
+    private boolean hasFooter() {
+        return mState == STATE_NONE && mFooterState != FOOTER_NONE;
+    }
+
+    private boolean isFooterPosition(int position) {
+        return hasFooter() && position == mAdapter.getItemCount();
+    }
+
+    private void requestLoadMore() {
+        if (mLoadingMore || mOnLoadMoreListener == null || mFooterState != FOOTER_LOADING) {
+            return;
+        }
+        mLoadingMore = true;
+        mMainHandler.post(mLoadMoreRunnable);
+    }
+
+    /**
+     * Shows a state instead of the items of the wrapped adapter
+     *
+     * @param state EmptyLayout.TYPE_LOADING, TYPE_EMPTY, TYPE_ERROR, a state registered with the EmptyLayout
+     *              or STATE_NONE
+     */
+    public void setState(int state) {
+        if (state == mState) {
+            if (state != STATE_NONE) {
+                notifyItemChanged(0);
+            }
+            return;
+        }
+        int oldState = mState;
+        int contentCount = mAdapter.getItemCount() + (hasFooter() ? 1 : 0);
+        if (oldState == STATE_NONE) {
+            saveContentLayoutState();
+        }
+        mState = state;
+        if (oldState == STATE_NONE) {
+            notifyItemRangeRemoved(0, contentCount);
+            notifyItemInserted(0);
+        } else if (state == STATE_NONE) {
+            notifyItemRemoved(0);
+            notifyItemRangeInserted(0, mAdapter.getItemCount() + (hasFooter() ? 1 : 0));
+            restoreContentLayoutState();
+        } else {
+            notifyItemChanged(0);
+        }
+    }
+
+    /**
+     * Saves the scroll position of the content before its items are removed, and lets the pool keep the
+     * ViewHolders on screen, the pool only keeps 5 of each view type by default
+     */
+    private void saveContentLayoutState() {
+        mContentLayoutState = null;
+        if (mRecyclerView == null || mRecyclerView.getLayoutManager() == null) {
+            return;
+        }
+        mContentLayoutState = mRecyclerView.getLayoutManager().onSaveInstanceState();
+        SparseIntArray shown = new SparseIntArray();
+        for (int i = 0; i < mRecyclerView.getChildCount(); i++) {
+            RecyclerView.ViewHolder holder = mRecyclerView.getChildViewHolder(mRecyclerView.getChildAt(i));
+            if (holder != null && !(holder instanceof FooterViewHolder)) {
+                shown.put(holder.getItemViewType(), shown.get(holder.getItemViewType()) + 1);
+            }
+        }
+        RecyclerView.RecycledViewPool pool = mRecyclerView.getRecycledViewPool();
+        for (int i = 0; i < shown.size(); i++) {
+            int viewType = shown.keyAt(i);
+            if (shown.valueAt(i) > mPoolSizes.get(viewType, DEFAULT_POOL_SIZE)) {
+                mPoolSizes.put(viewType, shown.valueAt(i));
+                pool.setMaxRecycledViews(viewType, shown.valueAt(i));
+            }
+        }
+    }
+
+    /**
+     * Scrolls the content back where it was when the state was shown, in the next layout
+     */
+    private void restoreContentLayoutState() {
+        if (mContentLayoutState != null && mRecyclerView != null && mRecyclerView.getLayoutManager() != null) {
+            mRecyclerView.getLayoutManager().onRestoreInstanceState(mContentLayoutState);
+        }
+        mContentLayoutState = null;
+    }
+
+    private static boolean isFooterViewType(int viewType) {
+        return viewType == VIEW_TYPE_FOOTER;
+    }
+
+    private boolean isStateViewType(int viewType) {
+        return viewType != VIEW_TYPE_FOOTER && mEmptyLayout.hasState(viewType - VIEW_TYPE_STATE);
+    }
+
+    @Override
+    public int getItemCount() {
+        return mState != STATE_NONE ? 1 : mAdapter.getItemCount() + (hasFooter() ? 1 : 0);
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        if (mState != STATE_NONE) {
+            return VIEW_TYPE_STATE + mState;
+        }
+        return isFooterPosition(position) ? VIEW_TYPE_FOOTER : mAdapter.getItemViewType(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        if (mState != STATE_NONE) {
+            return Long.MIN_VALUE + mState;
+        }
+        return isFooterPosition(position) ? Long.MIN_VALUE : mAdapter.getItemId(position);
+    }
+
+    @Override
+    public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        if (isStateViewType(viewType)) {
+            int state = viewType - VIEW_TYPE_STATE;
+            View view = LayoutInflater.from(parent.getContext())
+                    .inflate(mEmptyLayout.getStateLayoutRes(state), parent, false);
+            return new StateViewHolder(view);
+        }
+        if (isFooterViewType(viewType)) {
+            View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.view_footer, parent, false);
+            view.setOnClickListener(mFooterClickListener);
+            return new FooterViewHolder(view);
+        }
+        return mAdapter.onCreateViewHolder(parent, viewType);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        if (holder instanceof StateViewHolder) {
+            bindState((StateViewHolder) holder);
+        } else if (holder instanceof FooterViewHolder) {
+            bindFooter((FooterViewHolder) holder);
+        } else {
+            mAdapter.onBindViewHolder((VH) holder, position);
+            prefetch(position);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onBindViewHolder(RecyclerView.ViewHolder holder, int position, List<Object> payloads) {
+        if (holder instanceof StateViewHolder) {
+            bindState((StateViewHolder) holder);
+        } else if (holder instanceof FooterViewHolder) {
+            bindFooter((FooterViewHolder) holder);
+        } else {
+            mAdapter.onBindViewHolder((VH) holder, position, payloads);
+            prefetch(position);
+        }
+    }
+
+    private void bindState(StateViewHolder holder) {
+        int state = holder.getItemViewType() - VIEW_TYPE_STATE;
+        mEmptyLayout.bindStateView(state, holder.itemView, holder.binder,
+                mEmptyLayout.isDefaultStateLayout(state));
+        ViewGroup.LayoutParams lp = holder.itemView.getLayoutParams();
+        if (lp instanceof StaggeredGridLayoutManager.LayoutParams) {
+            ((StaggeredGridLayoutManager.LayoutParams) lp).setFullSpan(true);
+        }
+    }
+
+    private void prefetch(int position) {
+        if (mOnLoadMoreListener != null && position >= mAdapter.getItemCount() - 1 - mPrefetchDistance) {
+            requestLoadMore();
+        }
+    }
+
+    private void bindFooter(FooterViewHolder holder) {
+        ViewGroup.LayoutParams lp = holder.itemView.getLayoutParams();
+        if (lp instanceof StaggeredGridLayoutManager.LayoutParams) {
+            ((StaggeredGridLayoutManager.LayoutParams) lp).setFullSpan(true);
+        }
+        switch (mFooterState) {
+            case FOOTER_LOADING:
+                holder.icon.setVisibility(View.VISIBLE);
+                holder.icon.setImageResource(R.drawable.ic_loading);
+                holder.message.setText(R.string.footer_loading_message);
+                startFooterAnimation(holder);
+                // the footer is reached before the prefetch fired, e.g. on a short first page
+                requestLoadMore();
+                break;
+            case FOOTER_ERROR:
+                holder.icon.clearAnimation();
+                holder.icon.setVisibility(View.VISIBLE);
+                holder.icon.setImageResource(mEmptyLayout.getErrorDrawable());
+                holder.message.setText(R.string.footer_error_message);
+                break;
+            default:
+                holder.icon.clearAnimation();
+                holder.icon.setVisibility(View.GONE);
+                holder.message.setText(R.string.footer_end_message);
+                break;
+        }
+        holder.itemView.setClickable(mFooterState == FOOTER_ERROR);
+    }
+
+    private void startFooterAnimation(FooterViewHolder holder) {
+        if (mFooterState == FOOTER_LOADING && holder.icon.getAnimation() == null
+                && holder.itemView.getWindowToken() != null) {
+            holder.icon.startAnimation(mEmptyLayout.newLoadingAnimation());
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onViewAttachedToWindow(RecyclerView.ViewHolder holder) {
+        if (holder instanceof StateViewHolder) {
+            if (holder.getItemViewType() - VIEW_TYPE_STATE == EmptyLayout.TYPE_LOADING) {
+                int animationViewId = mEmptyLayout.getLoadingAnimationViewIdForLayout();
+                View animationView = animationViewId > 0 ? holder.itemView.findViewById(animationViewId) : null;
+                if (animationView != null) {
+                    animationView.startAnimation(mEmptyLayout.newLoadingAnimation());
+                }
+            }
+        } else if (holder instanceof FooterViewHolder) {
+            startFooterAnimation((FooterViewHolder) holder);
+        } else {
+            mAdapter.onViewAttachedToWindow((VH) holder);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onViewDetachedFromWindow(RecyclerView.ViewHolder holder) {
+        if (holder instanceof StateViewHolder) {
+            int animationViewId = mEmptyLayout.getLoadingAnimationViewIdForLayout();
+            View animationView = animationViewId > 0 ? holder.itemView.findViewById(animationViewId) : null;
+            if (animationView != null) {
+                animationView.clearAnimation();
+            }
+        } else if (holder instanceof FooterViewHolder) {
+            ((FooterViewHolder) holder).icon.clearAnimation();
+        } else {
+            mAdapter.onViewDetachedFromWindow((VH) holder);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onViewRecycled(RecyclerView.ViewHolder holder) {
+        if (!(holder instanceof StateViewHolder) && !(holder instanceof FooterViewHolder)) {
+            mAdapter.onViewRecycled((VH) holder);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean onFailedToRecycleView(RecyclerView.ViewHolder holder) {
+        if (holder instanceof StateViewHolder || holder instanceof FooterViewHolder) {
+            return super.onFailedToRecycleView(holder);
+        }
+        return mAdapter.onFailedToRecycleView((VH) holder);
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+        mAdapter.onAttachedToRecyclerView(recyclerView);
+        mRecyclerView = recyclerView;
+        mPoolSizes.clear();
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        if (layoutManager instanceof GridLayoutManager) {
+            final GridLayoutManager gridLayoutManager = (GridLayoutManager) layoutManager;
+            final GridLayoutManager.SpanSizeLookup lookup = gridLayoutManager.getSpanSizeLookup();
+            gridLayoutManager.setSpanSizeLookup(new GridLayoutManager.SpanSizeLookup() {
+                @Override
+                public int getSpanSize(int position) {
+                    if (mState != STATE_NONE || isFooterPosition(position)) {
+                        return gridLayoutManager.getSpanCount();
+                    }
+                    return lookup.getSpanSize(position);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+        mAdapter.onDetachedFromRecyclerView(recyclerView);
+        mMainHandler.removeCallbacks(mLoadMoreRunnable);
+        mLoadingMore = false;
+        if (mRecyclerView == recyclerView) {
+            mRecyclerView = null;
+            mContentLayoutState = null;
+            mPoolSizes.clear();
+        }
+    }
+
+    static class StateViewHolder extends RecyclerView.ViewHolder {
+
+        final StateBinder binder = new StateBinder();
+
+        StateViewHolder(View itemView) {
+            super(itemView);
+        }
+    }
+
+    static class FooterViewHolder extends RecyclerView.ViewHolder {
+
+        final ImageView icon;
+        final TextView message;
+
+        FooterViewHolder(View itemView) {
+            super(itemView);
+            icon = (ImageView) itemView.findViewById(R.id.imageViewLoading);
+            message = (TextView) itemView.findViewById(R.id.textViewMessage);
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.app.emptylayout;
+
+import android.database.DataSetObserver;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+import android.widget.ListAdapter;
+import android.widget.ListView;
+import android.widget.WrapperListAdapter;
+
+/**
+ * Wraps a ListAdapter and shows the loading, empty and error states of an EmptyLayout as a single item,
+ * instead of hiding the ListView. The ListView keeps its recycled views; the scroll position of the
+ * content is saved when a state is shown and restored when the content comes back.
+ * <p>
+ * ListView reads the view type count once, when the adapter is set: {@value #STATE_VIEW_TYPES} view types
+ * are reserved for the states of the EmptyLayout, showing a state beyond them throws.
+ *
+ * @see EmptyStateAdapter
+ */
+public class EmptyStateListAdapter extends BaseAdapter implements WrapperListAdapter {
+
+    /**
+     * The view types reserved for the states, the three built-in ones included
+     */
+    public static final int STATE_VIEW_TYPES = 16;
+
+    private final ListAdapter mAdapter;
+    private final EmptyLayout mEmptyLayout;
+    private int mState = EmptyStateAdapter.STATE_NONE;
+
+    private ListView mListView; // the ListView the views were last asked by
+    // the first visible item of the content and its top when the state was shown
+    private int mContentPosition = -1;
+    private int mContentTop;
+
+    private int mObserverCount; // the wrapped adapter is only observed while this one is
+
+    private final DataSetObserver mObserver = new DataSetObserver() {
+        @Override
+        public void onChanged() {
+            if (mState == EmptyStateAdapter.STATE_NONE) {
+                notifyDataSetChanged();
+            }
+        }
+
+        @Override
+        public void onInvalidated() {
+            notifyDataSetInvalidated();
+        }
+    };
+
+    /**
+     * @param adapter     the adapter of the content
+     * @param emptyLayout the EmptyLayout whose state layouts, messages and listeners are used
+     */
+    public EmptyStateListAdapter(ListAdapter adapter, EmptyLayout emptyLayout) {
+        mAdapter = adapter;
+        mEmptyLayout = emptyLayout;
+    }
+
+    @Override
+    public void registerDataSetObserver(DataSetObserver observer) {
+        super.registerDataSetObserver(observer);
+        if (mObserverCount++ == 0) {
+            mAdapter.registerDataSetObserver(mObserver);
+        }
+    }
+
+    @Override
+    public void unregisterDataSetObserver(DataSetObserver observer) {
+        super.unregisterDataSetObserver(observer);
+        if (--mObserverCount == 0) {
+            // nobody listens anymore, the wrapped adapter must not keep this one
+            mAdapter.unregisterDataSetObserver(mObserver);
+        }
+    }
+
+    @Override
+    public ListAdapter getWrappedAdapter() {
+        return mAdapter;
+    }
+
+    public int getState() {
+        return mState;
+    }
+
+    public void showLoading() {
+        setState(EmptyLayout.TYPE_LOADING);
+    }
+
+    public void showEmpty() {
+        setState(EmptyLayout.TYPE_EMPTY);
+    }
+
+    public void showError() {
+        setState(EmptyLayout.TYPE_ERROR);
+    }
+
+    public void hide() {
+        setState(EmptyStateAdapter.STATE_NONE);
+    }
+
+    /**
+     * Shows a state instead of the items of the wrapped adapter
+     *
+     * @param state EmptyLayout.TYPE_LOADING, TYPE_EMPTY, TYPE_ERROR, a state registered with the EmptyLayout
+     *              or EmptyStateAdapter.STATE_NONE
+     */
+    public void setState(int state) {
+        if (state == mState) {
+            notifyDataSetChanged();
+            return;
+        }
+        if (!isShowingState()) {
+            saveContentPosition();
+        }
+        mState = state;
+        notifyDataSetChanged();
+        if (!isShowingState()) {
+            restoreContentPosition();
+        }
+    }
+
+    /**
+     * Remembers the scroll position of the content, the ListView clamps it to the single state item
+     */
+    private void saveContentPosition() {
+        mContentPosition = -1;
+        if (mListView == null || mListView.getAdapter() == null || mListView.getChildCount() == 0) {
+            return;
+        }
+        mContentPosition = mListView.getFirstVisiblePosition();
+        mContentTop = mListView.getChildAt(0).getTop() - mListView.getPaddingTop();
+    }
+
+    private void restoreContentPosition() {
+        if (mContentPosition >= 0 && mListView != null) {
+            mListView.setSelectionFromTop(mContentPosition, mContentTop);
+        }
+        mContentPosition = -1;
+    }
+
+    private boolean isShowingState() {
+        return mState != EmptyStateAdapter.STATE_NONE;
+    }
+
+    @Override
+    public int getCount() {
+        return isShowingState() ? 1 : mAdapter.getCount();
+    }
+
+    @Override
+    public Object getItem(int position) {
+        return isShowingState() ? null : mAdapter.getItem(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return isShowingState() ? Long.MIN_VALUE + mState : mAdapter.getItemId(position);
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return mAdapter.hasStableIds();
+    }
+
+    @Override
+    public int getViewTypeCount() {
+        // the view types of the states follow those of the wrapped adapter. ListView reads it once, so the
+        // count must not change when a state is registered later
+        return mAdapter.getViewTypeCount() + STATE_VIEW_TYPES;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        if (!isShowingState()) {
+            return mAdapter.getItemViewType(position);
+        }
+        int index = mEmptyLayout.indexOfState(mState);
+        if (index >= STATE_VIEW_TYPES) {
+            throw new IllegalStateException("EmptyStateListAdapter supports " + STATE_VIEW_TYPES + " states");
+        }
+        return mAdapter.getViewTypeCount() + index;
+    }
+
+    @Override
+    public boolean areAllItemsEnabled() {
+        return !isShowingState() && mAdapter.areAllItemsEnabled();
+    }
+
+    @Override
+    public boolean isEnabled(int position) {
+        return !isShowingState() && mAdapter.isEnabled(position);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        // a state is an item, so the ListView does not switch to its own empty view
+        return !isShowingState() && mAdapter.isEmpty();
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        if (parent instanceof ListView) {
+            mListView = (ListView) parent;
+        }
+        if (!isShowingState()) {
+            return mAdapter.getView(position, convertView, parent);
+        }
+        StateBinder binder;
+        if (convertView == null) {
+            convertView = LayoutInflater.from(parent.getContext())
+                    .inflate(mEmptyLayout.getStateLayoutRes(mState), parent, false);
+            binder = new StateBinder();
+            convertView.setTag(R.id.textViewMessage, binder);
+        } else {
+            binder = (StateBinder) convertView.getTag(R.id.textViewMessage);
+        }
+        mEmptyLayout.bindStateView(mState, convertView, binder, mEmptyLayout.isDefaultStateLayout(mState));
+        if (mState == EmptyLayout.TYPE_LOADING) {
+            int animationViewId = mEmptyLayout.getLoadingAnimationViewIdForLayout();
+            View animationView = animationViewId > 0 ? convertView.findViewById(animationViewId) : null;
+            if (animationView != null && animationView.getAnimation() == null) {
+                animationView.startAnimation(mEmptyLayout.newLoadingAnimation());
+            }
+        }
+        return convertView;
+    }
+}
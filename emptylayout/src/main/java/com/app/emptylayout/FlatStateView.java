@@ -0,0 +1,408 @@
+package com.app.emptylayout;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Bundle;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.util.TypedValue;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+import android.view.SoundEffectConstants;
+import android.view.View;
+import android.view.ViewGroup;
+import android.view.accessibility.AccessibilityEvent;
+import android.view.accessibility.AccessibilityNodeInfo;
+import android.widget.Button;
+
+/**
+ * A state screen (icon, message and button) drawn by a single view, replacing the
+ * LinearLayout + TextView + ViewStub tree of view_empty.xml / view_error.xml.
+ * <p>
+ * While the button is shown the view is focusable and stands for the button: the center and enter keys
+ * and the accessibility click action click it, and accessibility services read the message and the
+ * button text.
+ */
+public class FlatStateView extends View {
+
+    private static final int[] TEXT_ATTRS = {android.R.attr.textSize, android.R.attr.textColor};
+    private static final int[] BACKGROUND_ATTRS = {android.R.attr.background};
+    private static final int[] STATE_ENABLED = {android.R.attr.state_enabled};
+    private static final int[] STATE_FOCUSED = {android.R.attr.state_enabled, android.R.attr.state_focused};
+    private static final int[] STATE_PRESSED = {android.R.attr.state_enabled, android.R.attr.state_pressed};
+
+    private final TextPaint mMessagePaint = new TextPaint(TextPaint.ANTI_ALIAS_FLAG);
+    private final TextPaint mButtonPaint = new TextPaint(TextPaint.ANTI_ALIAS_FLAG);
+    private ColorStateList mMessageColor;
+    private ColorStateList mButtonTextColor;
+
+    private final int mPadding;
+    private final int mSpacing;
+    private final int mButtonPaddingH;
+    private final int mButtonMinHeight;
+
+    private Drawable mIcon;
+    private int mIconRes;
+
+    private CharSequence mMessage;
+    private StaticLayout mMessageLayout;
+    private int mMessageLayoutWidth = -1;
+
+    private CharSequence mButtonText;
+    private OnClickListener mButtonClickListener;
+    private Drawable mButtonBackground;
+    private final Rect mButtonRect = new Rect();
+    private int mButtonTextWidth;
+    private boolean mButtonPressed;
+
+    private int mIconTop;
+    private int mMessageTop;
+
+    public FlatStateView(Context context) {
+        super(context);
+        float density = getResources().getDisplayMetrics().density;
+        mPadding = (int) (16 * density);
+        mSpacing = (int) (16 * density);
+        mButtonPaddingH = (int) (16 * density);
+        mButtonMinHeight = (int) (48 * density);
+        setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.WRAP_CONTENT,
+                ViewGroup.LayoutParams.MATCH_PARENT));
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            // the message is read even without the button
+            setImportantForAccessibility(IMPORTANT_FOR_ACCESSIBILITY_YES);
+        }
+
+        TypedValue value = new TypedValue();
+        if (context.getTheme().resolveAttribute(android.R.attr.textAppearanceMedium, value, true)) {
+            TypedArray a = context.obtainStyledAttributes(value.resourceId, TEXT_ATTRS);
+            mMessagePaint.setTextSize(a.getDimension(0, 18 * density));
+            mMessageColor = a.getColorStateList(1);
+            a.recycle();
+        } else {
+            mMessagePaint.setTextSize(18 * density);
+        }
+        TypedArray a = context.obtainStyledAttributes(null, TEXT_ATTRS, android.R.attr.buttonStyle, 0);
+        mButtonPaint.setTextSize(a.getDimension(0, 14 * density));
+        mButtonTextColor = a.getColorStateList(1);
+        a.recycle();
+        a = context.obtainStyledAttributes(null, BACKGROUND_ATTRS, android.R.attr.buttonStyle, 0);
+        mButtonBackground = a.getDrawable(0);
+        a.recycle();
+        if (mButtonBackground != null) {
+            mButtonBackground.setCallback(this);
+            mButtonBackground.setState(STATE_ENABLED);
+        }
+        updateTextColors();
+    }
+
+    /**
+     * Sets the icon drawn above the message
+     *
+     * @param resId the drawable resource, 0 for none
+     */
+    public void setIcon(int resId) {
+        if (resId == mIconRes && (resId == 0 || mIcon != null)) {
+            return;
+        }
+        mIconRes = resId;
+        mIcon = resId == 0 ? null : StateDrawableCache.get(getContext(), resId);
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * Forces the icon to be loaded again at the next setIcon(), e.g. after a theme or configuration change
+     */
+    void invalidateIcon() {
+        // no resource has this id, even setIcon(0) drops the icon
+        mIconRes = -1;
+    }
+
+    public void setMessage(CharSequence message) {
+        if (TextUtils.equals(message, mMessage)) {
+            return;
+        }
+        mMessage = message;
+        mMessageLayoutWidth = -1;
+        requestLayout();
+        invalidate();
+    }
+
+    public CharSequence getMessage() {
+        return mMessage;
+    }
+
+    /**
+     * Sets the button, drawn below the message
+     *
+     * @param text     the button text, null hides the button
+     * @param listener the OnClickListener of the button
+     */
+    public void setButton(CharSequence text, OnClickListener listener) {
+        mButtonClickListener = listener;
+        boolean changed = !TextUtils.equals(text, mButtonText);
+        mButtonText = text;
+        setFocusable(isButtonEnabled());
+        if (!changed) {
+            return;
+        }
+        mButtonTextWidth = text == null ? 0 : (int) Math.ceil(mButtonPaint.measureText(text, 0, text.length()));
+        requestLayout();
+        invalidate();
+    }
+
+    private boolean hasButton() {
+        return mButtonText != null;
+    }
+
+    private boolean isButtonEnabled() {
+        return hasButton() && mButtonClickListener != null;
+    }
+
+    private void performButtonClick() {
+        playSoundEffect(SoundEffectConstants.CLICK);
+        sendAccessibilityEvent(AccessibilityEvent.TYPE_VIEW_CLICKED);
+        mButtonClickListener.onClick(this);
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int iconWidth = mIcon == null ? 0 : mIcon.getBounds().width();
+        int iconHeight = mIcon == null ? 0 : mIcon.getBounds().height();
+        int buttonWidth = hasButton() ? mButtonTextWidth + mButtonPaddingH * 2 : 0;
+
+        int textWidth = mMessage == null ? 0
+                : (int) Math.ceil(Layout.getDesiredWidth(mMessage, mMessagePaint));
+        int contentWidth = Math.max(textWidth, Math.max(iconWidth, buttonWidth));
+        if (MeasureSpec.getMode(widthMeasureSpec) != MeasureSpec.UNSPECIFIED) {
+            contentWidth = Math.min(contentWidth, MeasureSpec.getSize(widthMeasureSpec) - mPadding * 2);
+        }
+        contentWidth = Math.max(contentWidth, 0);
+        ensureMessageLayout(contentWidth);
+
+        int height = mPadding * 2 + mSpacing + iconHeight;
+        if (mMessageLayout != null) {
+            height += mMessageLayout.getHeight();
+        }
+        if (hasButton()) {
+            height += mSpacing + mButtonMinHeight;
+        }
+        setMeasuredDimension(resolveSize(contentWidth + mPadding * 2, widthMeasureSpec),
+                resolveSize(height, heightMeasureSpec));
+    }
+
+    private void ensureMessageLayout(int width) {
+        if (mMessage == null) {
+            mMessageLayout = null;
+            mMessageLayoutWidth = -1;
+        } else if (mMessageLayout == null || mMessageLayoutWidth != width) {
+            mMessageLayout = new StaticLayout(mMessage, mMessagePaint, width,
+                    Layout.Alignment.ALIGN_CENTER, 1f, 0f, false);
+            mMessageLayoutWidth = width;
+        }
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        super.onLayout(changed, l, t, r, b);
+        int width = r - l;
+        int iconHeight = mIcon == null ? 0 : mIcon.getBounds().height();
+        mIconTop = mPadding + mSpacing;
+        mMessageTop = mIconTop + iconHeight;
+        if (hasButton()) {
+            int buttonTop = mMessageTop + (mMessageLayout == null ? 0 : mMessageLayout.getHeight()) + mSpacing;
+            int buttonWidth = mButtonTextWidth + mButtonPaddingH * 2;
+            int buttonLeft = (width - buttonWidth) / 2;
+            mButtonRect.set(buttonLeft, buttonTop, buttonLeft + buttonWidth, buttonTop + mButtonMinHeight);
+            if (mButtonBackground != null) {
+                mButtonBackground.setBounds(mButtonRect);
+            }
+        } else {
+            mButtonRect.setEmpty();
+        }
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        int width = getWidth();
+        if (mIcon != null) {
+            int save = canvas.save();
+            canvas.translate((width - mIcon.getBounds().width()) / 2, mIconTop);
+            mIcon.draw(canvas);
+            canvas.restoreToCount(save);
+        }
+        if (mMessageLayout != null) {
+            int save = canvas.save();
+            canvas.translate((width - mMessageLayout.getWidth()) / 2, mMessageTop);
+            mMessageLayout.draw(canvas);
+            canvas.restoreToCount(save);
+        }
+        if (hasButton()) {
+            if (mButtonBackground != null) {
+                mButtonBackground.draw(canvas);
+            }
+            float baseline = mButtonRect.exactCenterY() - (mButtonPaint.descent() + mButtonPaint.ascent()) / 2;
+            canvas.drawText(mButtonText, 0, mButtonText.length(),
+                    mButtonRect.exactCenterX() - mButtonTextWidth / 2f, baseline, mButtonPaint);
+        }
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (!isButtonEnabled()) {
+            return super.onTouchEvent(event);
+        }
+        boolean inButton = mButtonRect.contains((int) event.getX(), (int) event.getY());
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                if (!inButton) {
+                    return super.onTouchEvent(event);
+                }
+                setButtonPressed(true);
+                return true;
+            case MotionEvent.ACTION_MOVE:
+                if (!inButton) {
+                    setButtonPressed(false);
+                }
+                return mButtonPressed || super.onTouchEvent(event);
+            case MotionEvent.ACTION_UP:
+                if (mButtonPressed && inButton) {
+                    setButtonPressed(false);
+                    performButtonClick();
+                    return true;
+                }
+                setButtonPressed(false);
+                return super.onTouchEvent(event);
+            case MotionEvent.ACTION_CANCEL:
+                setButtonPressed(false);
+                return super.onTouchEvent(event);
+            default:
+                return super.onTouchEvent(event);
+        }
+    }
+
+    private void setButtonPressed(boolean pressed) {
+        if (mButtonPressed == pressed) {
+            return;
+        }
+        mButtonPressed = pressed;
+        updateButtonState();
+        invalidate(mButtonRect);
+    }
+
+    private void updateButtonState() {
+        if (mButtonBackground != null && mButtonBackground.isStateful()) {
+            mButtonBackground.setState(mButtonPressed ? STATE_PRESSED : isFocused() ? STATE_FOCUSED : STATE_ENABLED);
+        }
+        updateTextColors();
+    }
+
+    private static boolean isConfirmKey(int keyCode) {
+        return keyCode == KeyEvent.KEYCODE_DPAD_CENTER || keyCode == KeyEvent.KEYCODE_ENTER
+                || keyCode == KeyEvent.KEYCODE_NUMPAD_ENTER;
+    }
+
+    @Override
+    public boolean onKeyDown(int keyCode, KeyEvent event) {
+        if (isConfirmKey(keyCode) && isButtonEnabled()) {
+            if (event.getRepeatCount() == 0) {
+                setButtonPressed(true);
+            }
+            return true;
+        }
+        return super.onKeyDown(keyCode, event);
+    }
+
+    @Override
+    public boolean onKeyUp(int keyCode, KeyEvent event) {
+        if (isConfirmKey(keyCode) && isButtonEnabled()) {
+            if (mButtonPressed) {
+                setButtonPressed(false);
+                performButtonClick();
+            }
+            return true;
+        }
+        return super.onKeyUp(keyCode, event);
+    }
+
+    @Override
+    protected void onFocusChanged(boolean gainFocus, int direction, Rect previouslyFocusedRect) {
+        super.onFocusChanged(gainFocus, direction, previouslyFocusedRect);
+        if (!gainFocus) {
+            mButtonPressed = false;
+        }
+        updateButtonState();
+        invalidate(mButtonRect);
+    }
+
+    /**
+     * Gets the text read by accessibility services, the message then the button text
+     */
+    private CharSequence getAccessibilityText() {
+        if (!hasButton()) {
+            return mMessage;
+        }
+        return mMessage == null ? mButtonText : TextUtils.concat(mMessage, "\n", mButtonText);
+    }
+
+    @Override
+    public void onPopulateAccessibilityEvent(AccessibilityEvent event) {
+        super.onPopulateAccessibilityEvent(event);
+        CharSequence text = getAccessibilityText();
+        if (getContentDescription() == null && text != null) {
+            event.getText().add(text);
+        }
+    }
+
+    @Override
+    public void onInitializeAccessibilityNodeInfo(AccessibilityNodeInfo info) {
+        super.onInitializeAccessibilityNodeInfo(info);
+        if (getContentDescription() == null) {
+            info.setText(getAccessibilityText());
+        }
+        if (isButtonEnabled()) {
+            info.setClassName(Button.class.getName());
+            info.setClickable(true);
+            info.addAction(AccessibilityNodeInfo.ACTION_CLICK);
+        }
+    }
+
+    @Override
+    public boolean performAccessibilityAction(int action, Bundle arguments) {
+        // the view is not clickable itself, taps outside the button do nothing
+        if (action == AccessibilityNodeInfo.ACTION_CLICK && isButtonEnabled()) {
+            performButtonClick();
+            return true;
+        }
+        return super.performAccessibilityAction(action, arguments);
+    }
+
+    private void updateTextColors() {
+        int[] state = getDrawableState();
+        if (mMessageColor != null) {
+            mMessagePaint.setColor(mMessageColor.getColorForState(state, mMessageColor.getDefaultColor()));
+        }
+        if (mButtonTextColor != null) {
+            mButtonPaint.setColor(mButtonTextColor.getColorForState(state, mButtonTextColor.getDefaultColor()));
+        }
+    }
+
+    @Override
+    protected void drawableStateChanged() {
+        super.drawableStateChanged();
+        updateButtonState();
+        invalidate();
+    }
+
+    @Override
+    protected boolean verifyDrawable(Drawable who) {
+        return who == mButtonBackground || super.verifyDrawable(who);
+    }
+}
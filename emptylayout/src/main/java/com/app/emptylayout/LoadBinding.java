@@ -0,0 +1,145 @@
+package com.app.emptylayout;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A load bound to an EmptyLayout with {@link EmptyLayout#bind(ExecutorService, Callable, EmptyLayout.ResultClassifier,
+ * EmptyLayout.OnLoadListener)} or {@link EmptyLayout#bind(EmptyLayout.Loader, EmptyLayout.ResultClassifier,
+ * EmptyLayout.OnLoadListener)}.
+ * <p>
+ * The result may arrive on any thread, it is classified and delivered on the main thread. Once cancelled
+ * the work is interrupted or the loader is cancelled, the listener is told and a late result is dropped.
+ */
+final class LoadBinding<T> implements EmptyLayout.LoadCallback<T> {
+
+    /**
+     * null, an empty collection, map, text or array is empty, anything else is content
+     */
+    static final EmptyLayout.ResultClassifier<Object> DEFAULT_CLASSIFIER = new EmptyLayout.ResultClassifier<Object>() {
+        @Override
+        public int classify(Object result) {
+            boolean empty = result == null
+                    || result instanceof Collection && ((Collection<?>) result).isEmpty()
+                    || result instanceof Map && ((Map<?, ?>) result).isEmpty()
+                    || result instanceof CharSequence && ((CharSequence) result).length() == 0
+                    || result.getClass().isArray() && Array.getLength(result) == 0;
+            return empty ? EmptyLayout.TYPE_EMPTY : EmptyLayout.TYPE_CONTENT;
+        }
+    };
+
+    private final EmptyLayout mLayout;
+    private final Handler mMainHandler;
+    private final EmptyLayout.ResultClassifier<? super T> mClassifier;
+    private final EmptyLayout.OnLoadListener<T> mListener;
+
+    private volatile boolean mCancelled;
+    private volatile boolean mDelivered;
+    private Future<?> mFuture;
+    private EmptyLayout.Loader<T> mLoader;
+
+    LoadBinding(EmptyLayout layout, Handler mainHandler, EmptyLayout.ResultClassifier<? super T> classifier,
+                EmptyLayout.OnLoadListener<T> listener) {
+        this.mLayout = layout;
+        this.mMainHandler = mainHandler;
+        this.mClassifier = classifier != null ? classifier : DEFAULT_CLASSIFIER;
+        this.mListener = listener;
+    }
+
+    void start(ExecutorService executor, final Callable<T> task) {
+        try {
+            mFuture = executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    T result;
+                    try {
+                        result = task.call();
+                    } catch (Throwable e) {
+                        onError(e);
+                        return;
+                    }
+                    onResult(result);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // shut down or saturated, fails like the task would
+            onError(e);
+        }
+    }
+
+    void start(EmptyLayout.Loader<T> loader) {
+        mLoader = loader;
+        loader.load(this);
+    }
+
+    /**
+     * Stops the work and tells the listener, nothing is delivered afterwards. Main thread only.
+     */
+    void cancel() {
+        if (mCancelled) {
+            return;
+        }
+        mCancelled = true;
+        if (mFuture != null) {
+            mFuture.cancel(true);
+        }
+        if (mDelivered) {
+            return;
+        }
+        if (mLoader != null) {
+            mLoader.cancel();
+        }
+        if (mListener != null) {
+            mListener.onCancelled();
+        }
+    }
+
+    @Override
+    public void onResult(T result) {
+        deliver(result, null);
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        deliver(null, error != null ? error : new RuntimeException("EmptyLayout load failed"));
+    }
+
+    private void deliver(final T result, final Throwable error) {
+        if (mCancelled) {
+            // interrupted by cancel(), nobody waits for it
+            return;
+        }
+        Runnable delivery = new Runnable() {
+            @Override
+            public void run() {
+                if (mCancelled || mDelivered) {
+                    return;
+                }
+                mDelivered = true;
+                int state = error != null ? EmptyLayout.TYPE_ERROR : mClassifier.classify(result);
+                mLayout.finishLoad(LoadBinding.this, state);
+                if (mListener == null) {
+                    return;
+                }
+                if (error != null) {
+                    mListener.onFailed(error);
+                } else {
+                    mListener.onLoaded(result, state);
+                }
+            }
+        };
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            delivery.run();
+        } else {
+            mMainHandler.post(delivery);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.app.emptylayout;
+
+import android.graphics.Rect;
+import android.graphics.drawable.Animatable;
+import android.view.View;
+import android.view.ViewParent;
+import android.view.ViewTreeObserver;
+import android.view.animation.Animation;
+import android.view.animation.AnimationUtils;
+
+/**
+ * Runs the loading animation of an EmptyLayout only while it can actually be seen.
+ * <p>
+ * The animation is paused when the host is detached, invisible, in an invisible window or
+ * scrolled completely out of its parents, and resumed at the point it was paused. A view Animation
+ * plays on a hardware layer, an {@link Animatable} drawable (e.g. an AnimatedVectorDrawable, which
+ * runs on the RenderThread from API 25) is restarted when resumed.
+ */
+final class LoadingAnimationDriver implements ViewTreeObserver.OnScrollChangedListener {
+
+    private final View mHost;
+    private final Rect mTmpRect = new Rect();
+
+    private View mTarget;
+    private Animation mAnimation;
+    private Animatable mAnimatable;
+    private boolean mPaused;
+    private long mPausedElapsed;
+    private ViewTreeObserver mObserver;
+
+    LoadingAnimationDriver(View host) {
+        mHost = host;
+    }
+
+    /**
+     * Starts animating target, replacing any previous animation
+     */
+    void start(View target, Animation animation) {
+        if (target == mTarget && animation == mAnimation && !mPaused) {
+            return;
+        }
+        stop();
+        mTarget = target;
+        mAnimation = animation;
+        mPausedElapsed = 0;
+        mPaused = true;
+        observe(true);
+        update();
+    }
+
+    /**
+     * Starts the animatable drawable of target, replacing any previous animation
+     */
+    void start(View target, Animatable animatable) {
+        if (target == mTarget && animatable == mAnimatable && !mPaused) {
+            return;
+        }
+        stop();
+        mTarget = target;
+        mAnimatable = animatable;
+        mPaused = true;
+        observe(true);
+        update();
+    }
+
+    /**
+     * Stops the animation and forgets the target
+     */
+    void stop() {
+        if (mTarget != null && !mPaused) {
+            pause();
+        }
+        observe(false);
+        mTarget = null;
+        mAnimation = null;
+        mAnimatable = null;
+        mPaused = false;
+    }
+
+    /**
+     * Pauses or resumes the animation according to the current visibility of the host
+     */
+    void update() {
+        if (mTarget == null) {
+            return;
+        }
+        boolean visible = isVisible();
+        if (visible && mPaused) {
+            resume();
+        } else if (!visible && !mPaused) {
+            pause();
+        }
+        if (mHost.getWindowToken() != null) {
+            observe(true);
+        } else {
+            observe(false);
+        }
+    }
+
+    @Override
+    public void onScrollChanged() {
+        update();
+    }
+
+    private boolean isVisible() {
+        if (mHost.getWindowToken() == null || mHost.getWindowVisibility() != View.VISIBLE
+                || !mHost.isShown() || !mHost.getGlobalVisibleRect(mTmpRect)) {
+            return false;
+        }
+        // the target may live in the overlay of the host, which is not part of its parent chain
+        View view = mTarget;
+        while (view != null && view != mHost) {
+            if (view.getVisibility() != View.VISIBLE) {
+                return false;
+            }
+            ViewParent parent = view.getParent();
+            view = parent instanceof View ? (View) parent : null;
+        }
+        return true;
+    }
+
+    private void pause() {
+        mPaused = true;
+        if (mAnimatable != null) {
+            mAnimatable.stop();
+            return;
+        }
+        long startTime = mAnimation.getStartTime();
+        if (startTime != Animation.START_ON_FIRST_FRAME) {
+            long elapsed = AnimationUtils.currentAnimationTimeMillis() - startTime;
+            long duration = mAnimation.getDuration();
+            mPausedElapsed = duration > 0 && mAnimation.getRepeatCount() == Animation.INFINITE
+                    ? elapsed % duration : elapsed;
+        }
+        mTarget.clearAnimation();
+        mTarget.setLayerType(View.LAYER_TYPE_NONE, null);
+    }
+
+    private void resume() {
+        mPaused = false;
+        if (mAnimatable != null) {
+            mAnimatable.start();
+            return;
+        }
+        // the animated view only moves, let it be redrawn from its layer
+        mTarget.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+        mTarget.setAnimation(mAnimation);
+        if (mPausedElapsed > 0) {
+            mAnimation.setStartTime(AnimationUtils.currentAnimationTimeMillis() - mPausedElapsed);
+        } else {
+            mAnimation.setStartTime(Animation.START_ON_FIRST_FRAME);
+        }
+        mTarget.invalidate();
+    }
+
+    private void observe(boolean observe) {
+        ViewTreeObserver observer = observe && mTarget != null ? mHost.getViewTreeObserver() : null;
+        if (observer == mObserver) {
+            return;
+        }
+        if (mObserver != null && mObserver.isAlive()) {
+            mObserver.removeOnScrollChangedListener(this);
+        }
+        mObserver = observer;
+        if (mObserver != null) {
+            mObserver.addOnScrollChangedListener(this);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.app.emptylayout;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.os.Build;
+import android.text.TextPaint;
+import android.text.TextUtils;
+import android.text.format.Formatter;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
+
+/**
+ * The determinate progress of the loading state: a bar and a line of text (percentage, bytes and ETA).
+ * <p>
+ * Its height does not depend on the text, so an update never requests a layout, it only redraws this
+ * view. Updates are applied at most once per frame, and not at all while the view cannot be seen; the
+ * last values are drawn when it becomes visible again.
+ */
+public class LoadingProgressView extends View {
+
+    private static final int[] TEXT_ATTRS = {android.R.attr.textSize, android.R.attr.textColor};
+    private static final int[] ACCENT_ATTRS = {android.R.attr.colorAccent};
+    private static final int DEFAULT_BAR_COLOR = 0xFF33B5E5;
+    private static final int DEFAULT_TRACK_ALPHA = 0x40;
+
+    private final Paint mTrackPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mBarPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final TextPaint mTextPaint = new TextPaint(TextPaint.ANTI_ALIAS_FLAG);
+
+    private final int mBarHeight;
+    private final int mSpacing;
+    private final int mDesiredWidth;
+
+    // the values received, applied on the next frame
+    private float mFraction;
+    private long mBytes;
+    private long mTotalBytes;
+    private String mEta;
+    private boolean mDirty;
+    private boolean mFramePosted;
+
+    // the values drawn
+    private float mDrawnFraction;
+    private CharSequence mText;
+    private int mTextWidth = -1; // width the text was ellipsized for
+    private float mTextDrawnWidth;
+    private int mTextAscent;
+
+    private final Runnable mApplyRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mFramePosted = false;
+            apply();
+        }
+    };
+
+    public LoadingProgressView(Context context) {
+        this(context, null);
+    }
+
+    public LoadingProgressView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        float density = getResources().getDisplayMetrics().density;
+        mBarHeight = (int) (4 * density);
+        mSpacing = (int) (8 * density);
+        mDesiredWidth = (int) (200 * density);
+
+        int barColor = DEFAULT_BAR_COLOR;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            TypedArray a = context.obtainStyledAttributes(ACCENT_ATTRS);
+            barColor = a.getColor(0, DEFAULT_BAR_COLOR);
+            a.recycle();
+        }
+        mBarPaint.setColor(barColor);
+        mTrackPaint.setColor(barColor);
+        mTrackPaint.setAlpha(DEFAULT_TRACK_ALPHA);
+
+        TypedValue value = new TypedValue();
+        if (context.getTheme().resolveAttribute(android.R.attr.textAppearanceSmall, value, true)) {
+            TypedArray a = context.obtainStyledAttributes(value.resourceId, TEXT_ATTRS);
+            mTextPaint.setTextSize(a.getDimension(0, 14 * density));
+            ColorStateList color = a.getColorStateList(1);
+            if (color != null) {
+                mTextPaint.setColor(color.getDefaultColor());
+            }
+            a.recycle();
+        } else {
+            mTextPaint.setTextSize(14 * density);
+        }
+    }
+
+    /**
+     * Sets the progress
+     *
+     * @param fraction   the progress, from 0 to 1
+     * @param bytes      the bytes done, used when totalBytes is positive
+     * @param totalBytes the total bytes, 0 to show the percentage only
+     * @param eta        the remaining time text, null for none
+     */
+    public void setProgress(float fraction, long bytes, long totalBytes, String eta) {
+        mFraction = Math.max(0f, Math.min(fraction, 1f));
+        mBytes = bytes;
+        mTotalBytes = totalBytes;
+        mEta = eta;
+        mDirty = true;
+        scheduleApply();
+    }
+
+    public float getProgress() {
+        return mFraction;
+    }
+
+    private boolean canBeSeen() {
+        return getWindowToken() != null && getWindowVisibility() == VISIBLE && isShown();
+    }
+
+    private void scheduleApply() {
+        if (mFramePosted || !mDirty || !canBeSeen()) {
+            // dropped while invisible, the last values are applied when the view is shown again
+            return;
+        }
+        mFramePosted = true;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            postOnAnimation(mApplyRunnable);
+        } else {
+            postDelayed(mApplyRunnable, 16);
+        }
+    }
+
+    private void apply() {
+        if (!mDirty) {
+            return;
+        }
+        if (!canBeSeen()) {
+            return;
+        }
+        mDirty = false;
+        mDrawnFraction = mFraction;
+        mText = formatText();
+        mTextWidth = -1;
+        invalidate();
+    }
+
+    private CharSequence formatText() {
+        StringBuilder text = new StringBuilder();
+        text.append(Math.round(mFraction * 100)).append('%');
+        if (mTotalBytes > 0) {
+            text.append("  ").append(Formatter.formatShortFileSize(getContext(), mBytes))
+                    .append(" / ").append(Formatter.formatShortFileSize(getContext(), mTotalBytes));
+        }
+        if (!TextUtils.isEmpty(mEta)) {
+            text.append("  ").append(mEta);
+        }
+        return text;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        Paint.FontMetricsInt fm = mTextPaint.getFontMetricsInt();
+        mTextAscent = -fm.top;
+        int height = getPaddingTop() + mBarHeight + mSpacing + fm.bottom - fm.top + getPaddingBottom();
+        setMeasuredDimension(resolveSize(mDesiredWidth + getPaddingLeft() + getPaddingRight(), widthMeasureSpec),
+                resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        int left = getPaddingLeft();
+        int right = getWidth() - getPaddingRight();
+        int top = getPaddingTop();
+        canvas.drawRect(left, top, right, top + mBarHeight, mTrackPaint);
+        canvas.drawRect(left, top, left + (right - left) * mDrawnFraction, top + mBarHeight, mBarPaint);
+        if (mText == null) {
+            return;
+        }
+        int width = right - left;
+        if (mTextWidth != width) {
+            mText = TextUtils.ellipsize(mText, mTextPaint, width, TextUtils.TruncateAt.END);
+            mTextWidth = width;
+            mTextDrawnWidth = mTextPaint.measureText(mText, 0, mText.length());
+        }
+        int baseline = top + mBarHeight + mSpacing + mTextAscent;
+        canvas.drawText(mText, 0, mText.length(), left + (width - mTextDrawnWidth) / 2f, baseline, mTextPaint);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        scheduleApply();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        removeCallbacks(mApplyRunnable);
+        mFramePosted = false;
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        scheduleApply();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        scheduleApply();
+    }
+}
@@ -0,0 +1,110 @@
+package com.app.emptylayout;
+
+import java.util.Random;
+
+/**
+ * How the error state of an EmptyLayout retries, see {@link EmptyLayout#setRetryPolicy(RetryPolicy)}.
+ * <p>
+ * Retries are spaced by an exponential backoff with jitter, so that many clients failing together do not
+ * retry together. The same policy can be shared by many EmptyLayouts.
+ */
+public class RetryPolicy {
+
+    private final long mInitialDelayMillis;
+    private final long mMaxDelayMillis;
+    private float mMultiplier = 2f;
+    private float mJitter = .5f;
+    private int mMaxAutoRetries = 5;
+    private boolean mAutoRetry = true;
+    private boolean mShowCountdown = true;
+
+    /**
+     * @param initialDelayMillis the delay before the first retry
+     * @param maxDelayMillis     the longest delay between two retries
+     */
+    public RetryPolicy(long initialDelayMillis, long maxDelayMillis) {
+        if (initialDelayMillis <= 0 || maxDelayMillis < initialDelayMillis) {
+            throw new IllegalArgumentException("EmptyLayout wrong retry delays!");
+        }
+        this.mInitialDelayMillis = initialDelayMillis;
+        this.mMaxDelayMillis = maxDelayMillis;
+    }
+
+    public float getMultiplier() {
+        return mMultiplier;
+    }
+
+    /**
+     * @param multiplier the factor applied to the delay after each failed retry, 2 by default
+     */
+    public void setMultiplier(float multiplier) {
+        this.mMultiplier = Math.max(1f, multiplier);
+    }
+
+    public float getJitter() {
+        return mJitter;
+    }
+
+    /**
+     * @param jitter the part of the delay drawn at random, from 0 (none) to 1 (anywhere from 0 to the delay),
+     *               0.5 by default
+     */
+    public void setJitter(float jitter) {
+        this.mJitter = Math.max(0f, Math.min(jitter, 1f));
+    }
+
+    public int getMaxAutoRetries() {
+        return mMaxAutoRetries;
+    }
+
+    /**
+     * @param maxAutoRetries the automatic retries after which only the button retries, 0 for no limit,
+     *                       5 by default
+     */
+    public void setMaxAutoRetries(int maxAutoRetries) {
+        this.mMaxAutoRetries = Math.max(0, maxAutoRetries);
+    }
+
+    public boolean isAutoRetry() {
+        return mAutoRetry;
+    }
+
+    /**
+     * @param autoRetry retry by itself once the delay elapsed, true by default. Otherwise the policy only
+     *                  collapses the taps on the button.
+     */
+    public void setAutoRetry(boolean autoRetry) {
+        this.mAutoRetry = autoRetry;
+    }
+
+    public boolean isShowCountdown() {
+        return mShowCountdown;
+    }
+
+    /**
+     * @param showCountdown show the seconds left before the automatic retry in the error message, true by default
+     */
+    public void setShowCountdown(boolean showCountdown) {
+        this.mShowCountdown = showCountdown;
+    }
+
+    /**
+     * Gets the delay before a retry
+     *
+     * @param attempt the failed retries so far, 0 for the first retry
+     */
+    long getDelayMillis(int attempt, Random random) {
+        double delay = mInitialDelayMillis * Math.pow(mMultiplier, attempt);
+        delay = Math.min(delay, mMaxDelayMillis);
+        return (long) (delay * (1f - mJitter * random.nextFloat()));
+    }
+
+    /**
+     * Gets if a retry should happen by itself
+     *
+     * @param attempt the failed retries so far
+     */
+    boolean shouldAutoRetry(int attempt) {
+        return mAutoRetry && (mMaxAutoRetries == 0 || attempt < mMaxAutoRetries);
+    }
+}
@@ -0,0 +1,176 @@
+package com.app.emptylayout;
+
+import android.os.Handler;
+import android.os.SystemClock;
+import android.view.View;
+
+import java.util.Random;
+
+/**
+ * Applies the {@link RetryPolicy} of an EmptyLayout: it stands in for the error button click listener,
+ * collapses the taps while a retry is in flight and counts down to the automatic retry.
+ * <p>
+ * A retry is in flight from the moment it starts until the EmptyLayout shows another state than loading.
+ * If it shows the error state again the retry failed and the next delay is longer, any other state resets
+ * the backoff. The countdown is paused while the EmptyLayout is detached or cannot be seen, and resumes
+ * with the time that was left.
+ */
+final class RetryScheduler implements View.OnClickListener {
+
+    private static final long TICK_MILLIS = 1000;
+
+    private final EmptyLayout mHost;
+    private final Handler mHandler;
+    private final Random mRandom = new Random();
+
+    private RetryPolicy mPolicy;
+    private View.OnClickListener mListener;
+
+    private int mAttempt; // failed retries since the error state was first shown
+    private boolean mInFlight;
+    private boolean mScheduled;
+    private boolean mPaused;
+    private long mDeadline; // uptime of the automatic retry, while not paused
+    private long mRemaining; // time left before the automatic retry, while paused
+
+    private final Runnable mTickRunnable = new Runnable() {
+        @Override
+        public void run() {
+            tick();
+        }
+    };
+
+    RetryScheduler(EmptyLayout host, Handler handler) {
+        mHost = host;
+        mHandler = handler;
+    }
+
+    void setPolicy(RetryPolicy policy) {
+        mPolicy = policy;
+        cancel();
+        mAttempt = 0;
+        mInFlight = false;
+    }
+
+    RetryPolicy getPolicy() {
+        return mPolicy;
+    }
+
+    void setListener(View.OnClickListener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Called when a state is applied, TYPE_CONTENT for none
+     */
+    void onStateShown(int type) {
+        if (mPolicy == null) {
+            return;
+        }
+        if (type == EmptyLayout.TYPE_ERROR) {
+            if (mInFlight) {
+                mInFlight = false;
+                mAttempt++;
+            }
+            if (!mScheduled && mPolicy.shouldAutoRetry(mAttempt) && mListener != null) {
+                schedule(mPolicy.getDelayMillis(mAttempt, mRandom));
+            }
+        } else if (type != EmptyLayout.TYPE_LOADING) {
+            // the retry succeeded, or the error was left some other way
+            cancel();
+            mInFlight = false;
+            mAttempt = 0;
+        }
+    }
+
+    @Override
+    public void onClick(View v) {
+        retry(v);
+    }
+
+    private void retry(View v) {
+        if (mInFlight || mListener == null) {
+            // collapsed into the retry in flight
+            return;
+        }
+        cancel();
+        mInFlight = true;
+        mListener.onClick(v);
+    }
+
+    /**
+     * Gets the seconds left before the automatic retry, 0 when none is shown
+     */
+    int getCountdownSeconds() {
+        if (!mScheduled || !mPolicy.isShowCountdown()) {
+            return 0;
+        }
+        long remaining = mPaused ? mRemaining : mDeadline - SystemClock.uptimeMillis();
+        return (int) Math.max(1, (remaining + TICK_MILLIS - 1) / TICK_MILLIS);
+    }
+
+    /**
+     * Pauses or resumes the countdown according to the current visibility of the host
+     */
+    void update() {
+        if (!mScheduled) {
+            return;
+        }
+        boolean visible = mHost.getWindowToken() != null && mHost.getWindowVisibility() == View.VISIBLE
+                && mHost.isShown();
+        if (visible && mPaused) {
+            mPaused = false;
+            mDeadline = SystemClock.uptimeMillis() + mRemaining;
+            postTick();
+        } else if (!visible) {
+            pause();
+        }
+    }
+
+    /**
+     * Pauses the countdown, e.g. while the host is being detached and still has its window
+     */
+    void pause() {
+        if (mScheduled && !mPaused) {
+            mPaused = true;
+            mRemaining = Math.max(0, mDeadline - SystemClock.uptimeMillis());
+            mHandler.removeCallbacks(mTickRunnable);
+        }
+    }
+
+    private void schedule(long delayMillis) {
+        mScheduled = true;
+        mPaused = true;
+        mRemaining = delayMillis;
+        update();
+    }
+
+    private void cancel() {
+        if (mScheduled) {
+            mScheduled = false;
+            mHandler.removeCallbacks(mTickRunnable);
+            mHost.onRetryCountdown();
+        }
+    }
+
+    private void postTick() {
+        long remaining = mDeadline - SystemClock.uptimeMillis();
+        // wake up on the second boundaries of the countdown, or at the deadline
+        long delay = remaining % TICK_MILLIS;
+        mHandler.postDelayed(mTickRunnable, delay > 0 ? delay : Math.min(remaining, TICK_MILLIS));
+    }
+
+    private void tick() {
+        if (!mScheduled || mPaused) {
+            return;
+        }
+        if (SystemClock.uptimeMillis() >= mDeadline) {
+            mScheduled = false;
+            mHost.onRetryCountdown();
+            retry(mHost);
+            return;
+        }
+        mHost.onRetryCountdown();
+        postTick();
+    }
+}
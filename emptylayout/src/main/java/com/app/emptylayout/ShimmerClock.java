@@ -0,0 +1,111 @@
+package com.app.emptylayout;
+
+import android.graphics.LinearGradient;
+import android.graphics.Shader;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+import android.view.View;
+
+import java.util.ArrayList;
+
+/**
+ * The single time source of every shimmering {@link SkeletonView}.
+ * <p>
+ * One frame callback runs while at least one view is registered and invalidates the registered
+ * views, which all read the same phase and draw with the same gradient shader. Nothing is allocated
+ * per frame. Must only be used from the main thread.
+ */
+final class ShimmerClock {
+
+    static final long PERIOD_MILLIS = 1200;
+
+    private static final int FRAME_DELAY_MILLIS = 16; // before Choreographer, API 16
+
+    private static final ArrayList<View> sViews = new ArrayList<>();
+    private static float sPhase;
+    private static boolean sRunning;
+
+    private static LinearGradient sShader;
+    private static int sShaderWidth;
+
+    private static Choreographer.FrameCallback sFrameCallback;
+    private static Handler sHandler;
+    private static final Runnable sFrameRunnable = new Runnable() {
+        @Override
+        public void run() {
+            doFrame(SystemClock.uptimeMillis());
+        }
+    };
+
+    private ShimmerClock() {
+    }
+
+    /**
+     * Gets the position of the shimmer in its period, from 0 to 1, the same for every view
+     */
+    static float getPhase() {
+        return sPhase;
+    }
+
+    /**
+     * Gets the shared highlight shader, a gradient from x = 0 to x = width
+     */
+    static Shader getShader(int width, int highlightColor) {
+        if (sShader == null || sShaderWidth != width) {
+            int transparent = highlightColor & 0x00FFFFFF;
+            sShader = new LinearGradient(0, 0, width, 0, new int[]{transparent, highlightColor, transparent},
+                    new float[]{0f, .5f, 1f}, Shader.TileMode.CLAMP);
+            sShaderWidth = width;
+        }
+        return sShader;
+    }
+
+    static void register(View view) {
+        if (sViews.contains(view)) {
+            return;
+        }
+        sViews.add(view);
+        if (!sRunning) {
+            sRunning = true;
+            postFrame();
+        }
+    }
+
+    static void unregister(View view) {
+        sViews.remove(view);
+    }
+
+    private static void postFrame() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            if (sFrameCallback == null) {
+                sFrameCallback = new Choreographer.FrameCallback() {
+                    @Override
+                    public void doFrame(long frameTimeNanos) {
+                        ShimmerClock.doFrame(frameTimeNanos / 1000000);
+                    }
+                };
+            }
+            Choreographer.getInstance().postFrameCallback(sFrameCallback);
+        } else {
+            if (sHandler == null) {
+                sHandler = new Handler(Looper.getMainLooper());
+            }
+            sHandler.postDelayed(sFrameRunnable, FRAME_DELAY_MILLIS);
+        }
+    }
+
+    private static void doFrame(long frameTimeMillis) {
+        if (sViews.isEmpty()) {
+            sRunning = false;
+            return;
+        }
+        sPhase = (frameTimeMillis % PERIOD_MILLIS) / (float) PERIOD_MILLIS;
+        for (int i = sViews.size() - 1; i >= 0; i--) {
+            sViews.get(i).invalidate();
+        }
+        postFrame();
+    }
+}
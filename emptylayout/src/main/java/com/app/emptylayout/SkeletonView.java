@@ -0,0 +1,172 @@
+package com.app.emptylayout;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * A skeleton placeholder with a shimmer, shown instead of the loading spinner when
+ * {@link EmptyLayout#setSkeletonLoading(boolean)} is enabled.
+ * <p>
+ * The bones are the bounds of the content of the EmptyLayout, or a few text lines when the content was
+ * never laid out. The shimmer is driven by {@link ShimmerClock}, shared by every skeleton, so a frame
+ * only costs an invalidate per visible skeleton.
+ */
+public class SkeletonView extends View {
+
+    private static final int BONE_COLOR = 0xFFE0E0E0;
+    private static final int HIGHLIGHT_COLOR = 0x99FFFFFF;
+    private static final int DEFAULT_LINES = 4;
+
+    private final Paint mBonePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mShimmerPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF mTmpRect = new RectF();
+    private final float mRadius;
+    private final int mShimmerWidth;
+    private final int mLineHeight;
+    private final int mLineSpacing;
+
+    private float[] mBones = new float[4 * 8]; // left, top, right, bottom of each bone
+    private int mBoneCount;
+    private boolean mDefaultBones;
+    private boolean mRegistered;
+
+    public SkeletonView(Context context) {
+        super(context);
+        float density = getResources().getDisplayMetrics().density;
+        mRadius = 4 * density;
+        mShimmerWidth = (int) (160 * density);
+        mLineHeight = (int) (12 * density);
+        mLineSpacing = (int) (12 * density);
+        mBonePaint.setColor(BONE_COLOR);
+        mShimmerPaint.setShader(ShimmerClock.getShader(mShimmerWidth, HIGHLIGHT_COLOR));
+        setLayoutParams(new ViewGroup.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                ViewGroup.LayoutParams.MATCH_PARENT));
+    }
+
+    /**
+     * Removes every bone, the default text lines are drawn until bones are added
+     */
+    public void clearBones() {
+        mBoneCount = 0;
+        mDefaultBones = false;
+        invalidate();
+    }
+
+    /**
+     * Adds a bone, in the coordinates of this view
+     */
+    public void addBone(float left, float top, float right, float bottom) {
+        if (right <= left || bottom <= top) {
+            return;
+        }
+        if (mDefaultBones) {
+            mBoneCount = 0;
+            mDefaultBones = false;
+        }
+        int index = mBoneCount * 4;
+        if (index + 4 > mBones.length) {
+            float[] bones = new float[mBones.length * 2];
+            System.arraycopy(mBones, 0, bones, 0, index);
+            mBones = bones;
+        }
+        mBones[index] = left;
+        mBones[index + 1] = top;
+        mBones[index + 2] = right;
+        mBones[index + 3] = bottom;
+        mBoneCount++;
+        invalidate();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        setMeasuredDimension(getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec),
+                getDefaultSize(getSuggestedMinimumHeight(), heightMeasureSpec));
+    }
+
+    @Override
+    protected void onLayout(boolean changed, int l, int t, int r, int b) {
+        super.onLayout(changed, l, t, r, b);
+        if (mBoneCount == 0 || mDefaultBones) {
+            setDefaultBones(r - l);
+        }
+    }
+
+    private void setDefaultBones(int width) {
+        mBoneCount = 0;
+        int left = getPaddingLeft() + mLineSpacing;
+        int right = width - getPaddingRight() - mLineSpacing;
+        int top = getPaddingTop() + mLineSpacing;
+        for (int i = 0; i < DEFAULT_LINES; i++) {
+            // the last line is shorter, like the end of a paragraph
+            int lineRight = i == DEFAULT_LINES - 1 ? left + (right - left) * 3 / 5 : right;
+            addBone(left, top, lineRight, top + mLineHeight);
+            top += mLineHeight + mLineSpacing;
+        }
+        mDefaultBones = true;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        float[] bones = mBones;
+        for (int i = 0, end = mBoneCount * 4; i < end; i += 4) {
+            mTmpRect.set(bones[i], bones[i + 1], bones[i + 2], bones[i + 3]);
+            canvas.drawRoundRect(mTmpRect, mRadius, mRadius, mBonePaint);
+        }
+        // the shader is shared, move the canvas to the shimmer instead of changing the shader
+        float offset = ShimmerClock.getPhase() * (getWidth() + mShimmerWidth) - mShimmerWidth;
+        int save = canvas.save();
+        canvas.translate(offset, 0);
+        for (int i = 0, end = mBoneCount * 4; i < end; i += 4) {
+            if (bones[i + 2] < offset || bones[i] > offset + mShimmerWidth) {
+                continue;
+            }
+            mTmpRect.set(bones[i] - offset, bones[i + 1], bones[i + 2] - offset, bones[i + 3]);
+            canvas.drawRoundRect(mTmpRect, mRadius, mRadius, mShimmerPaint);
+        }
+        canvas.restoreToCount(save);
+    }
+
+    private void updateRegistration() {
+        boolean visible = getWindowToken() != null && getWindowVisibility() == VISIBLE && isShown();
+        if (visible != mRegistered) {
+            mRegistered = visible;
+            if (visible) {
+                ShimmerClock.register(this);
+            } else {
+                ShimmerClock.unregister(this);
+            }
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        updateRegistration();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mRegistered = false;
+        ShimmerClock.unregister(this);
+    }
+
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        // may be called by the View constructor, before the fields are initialized
+        if (mTmpRect != null) {
+            updateRegistration();
+        }
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateRegistration();
+    }
+}
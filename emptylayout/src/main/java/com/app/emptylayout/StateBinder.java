@@ -0,0 +1,159 @@
+package com.app.emptylayout;
+
+import android.text.TextUtils;
+import android.view.View;
+import android.view.ViewStub;
+import android.widget.TextView;
+
+/**
+ * Binds the message, icon and button of one state view.
+ * <p>
+ * The views are looked up once per state view and every value is compared with the last bound one,
+ * so a view is only touched (and only requests a layout) when something actually changed.
+ */
+final class StateBinder {
+
+    private static final int UNKNOWN = -1;
+
+    private View mView;
+
+    private int mMessageViewId;
+    private TextView mMessageView;
+    private CharSequence mMessage;
+    private int mIcon;
+
+    private int mButtonId;
+    private View mButton;
+    private int mButtonVisibility = UNKNOWN;
+    private View.OnClickListener mButtonListener;
+    private CharSequence mButtonText;
+
+    /**
+     * Sets the state view to bind, forgetting what was bound if it is a different view
+     */
+    void setView(View view) {
+        if (view == mView) {
+            return;
+        }
+        mView = view;
+        mMessageViewId = 0;
+        mMessageView = null;
+        mMessage = null;
+        mIcon = 0;
+        mButtonId = 0;
+        mButton = null;
+        mButtonVisibility = UNKNOWN;
+        mButtonListener = null;
+        mButtonText = null;
+    }
+
+    void reset() {
+        setView(null);
+    }
+
+    /**
+     * Puts the view back as inflated before it goes back to the pool, and forgets it: a pooled view must
+     * not keep the listener (holding its Activity), the texts nor the icon of its last EmptyLayout
+     *
+     * @param messageRes the message of the layout, 0 for none
+     * @param iconRes    the icon of the layout, 0 for none
+     */
+    void recycle(int messageRes, int iconRes) {
+        if (mMessageView != null) {
+            if (messageRes != 0) {
+                mMessageView.setText(messageRes);
+            } else {
+                mMessageView.setText(null);
+            }
+            mMessageView.setCompoundDrawables(null,
+                    iconRes != 0 ? StateDrawableCache.get(mMessageView.getContext(), iconRes) : null, null, null);
+        }
+        if (mButton != null) {
+            mButton.setOnClickListener(null);
+            mButton.setVisibility(View.GONE);
+            if (mButton instanceof TextView) {
+                ((TextView) mButton).setText(null);
+            }
+        }
+        reset();
+    }
+
+    /**
+     * Forces the icon to be set again, e.g. after a configuration change
+     */
+    void invalidateIcon() {
+        mIcon = 0;
+    }
+
+    TextView getMessageView() {
+        return mMessageView;
+    }
+
+    void bindMessage(int messageViewId, CharSequence message) {
+        if (messageViewId != mMessageViewId) {
+            mMessageViewId = messageViewId;
+            mMessageView = (TextView) mView.findViewById(messageViewId);
+            mMessage = null;
+            mIcon = 0;
+        }
+        if (mMessageView != null && !TextUtils.equals(message, mMessage)) {
+            mMessageView.setText(message);
+            mMessage = message;
+        }
+    }
+
+    /**
+     * Sets the icon as the top compound drawable of the message view
+     */
+    void bindIcon(int iconRes) {
+        if (mMessageView != null && iconRes != mIcon) {
+            //缓存中已经设置了图片大小，否则不显示
+            mMessageView.setCompoundDrawables(null, StateDrawableCache.get(mMessageView.getContext(), iconRes), null, null);
+            mIcon = iconRes;
+        }
+    }
+
+    /**
+     * Shows the button when showButton is set and a listener exists, inflating its ViewStub if needed
+     *
+     * @param stubId the ViewStub holding the button, 0 if the button is not stubbed
+     */
+    void bindButton(int stubId, int buttonId, boolean showButton, View.OnClickListener listener,
+                    CharSequence buttonText) {
+        if (!(buttonId > 0)) {
+            return;
+        }
+        if (buttonId != mButtonId) {
+            mButtonId = buttonId;
+            mButton = mView.findViewById(buttonId);
+            mButtonVisibility = UNKNOWN;
+            mButtonListener = null;
+            mButtonText = null;
+        }
+        boolean visible = showButton && listener != null;
+        if (visible && mButton == null && stubId > 0) {
+            ViewStub buttonViewStub = (ViewStub) mView.findViewById(stubId);
+            if (buttonViewStub != null) {
+                buttonViewStub.inflate();
+                mButton = mView.findViewById(buttonId);
+            }
+        }
+        if (mButton == null) {
+            return;
+        }
+        if (listener != mButtonListener) {
+            mButton.setOnClickListener(listener);
+            mButtonListener = listener;
+        }
+        int visibility = visible ? View.VISIBLE : View.GONE;
+        if (visibility != mButtonVisibility) {
+            mButton.setVisibility(visibility);
+            mButtonVisibility = visibility;
+        }
+        if (visible && buttonText != null && mButton instanceof TextView
+                && !TextUtils.equals(buttonText, mButtonText)) {
+            ((TextView) mButton).setText(buttonText);
+            mButtonText = buttonText;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.app.emptylayout;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.widget.RelativeLayout;
+
+/**
+ * The container of the state views of an EmptyLayout, a RelativeLayout which remembers its last measure.
+ * <p>
+ * The measure is keyed on the width and height specs and on a content version. The version changes with
+ * every layout request coming from the state views, i.e. when a state view is added, removed, shown or
+ * hidden, or when a message, icon or button changes: {@link StateBinder} and {@link FlatStateView} only
+ * touch a view when its value actually changed. Measuring an unchanged state again, e.g. a second time in
+ * the same pass, in a layout forced from above or in the overlay, reuses the result without walking the
+ * state views. Only the last measure is kept, it is the one the children were measured with.
+ */
+final class StateContainer extends RelativeLayout {
+
+    private int mContentVersion;
+
+    private boolean mMeasured;
+    private int mMeasuredVersion;
+    private int mWidthSpec;
+    private int mHeightSpec;
+    private int mMeasuredWidth;
+    private int mMeasuredHeight;
+
+    StateContainer(Context context) {
+        super(context);
+    }
+
+    /**
+     * Forgets the cached measure
+     */
+    void onContentChanged() {
+        mContentVersion++;
+    }
+
+    @Override
+    public void requestLayout() {
+        onContentChanged();
+        super.requestLayout();
+    }
+
+    @Override
+    protected void onConfigurationChanged(Configuration newConfig) {
+        super.onConfigurationChanged(newConfig);
+        // e.g. a new font scale, the views are forced to measure again without requesting a layout
+        onContentChanged();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (mMeasured && mMeasuredVersion == mContentVersion && mWidthSpec == widthMeasureSpec
+                && mHeightSpec == heightMeasureSpec) {
+            // the children keep the sizes and positions of that measure
+            setMeasuredDimension(mMeasuredWidth, mMeasuredHeight);
+            return;
+        }
+        int version = mContentVersion; // a request made while measuring is for the next measure
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+        mMeasured = true;
+        mMeasuredVersion = version;
+        mWidthSpec = widthMeasureSpec;
+        mHeightSpec = heightMeasureSpec;
+        mMeasuredWidth = getMeasuredWidthAndState();
+        mMeasuredHeight = getMeasuredHeightAndState();
+    }
+}
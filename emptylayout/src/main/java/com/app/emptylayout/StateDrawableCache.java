@@ -0,0 +1,84 @@
+package com.app.emptylayout;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.content.res.Resources;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.util.SparseArray;
+
+import java.util.WeakHashMap;
+
+/**
+ * Cache of the state icons shared by all EmptyLayouts. Keeps the constant state and the bounds of
+ * each drawable resource, so a transition only creates a light drawable instance sharing the bitmap.
+ * <p>
+ * The drawables are kept per theme, weakly, since a drawable may use attributes of the theme it was
+ * loaded with; on API 21+ the new instances are themed too. The cache belongs to the configuration it
+ * was filled with and is dropped as soon as the configuration (density, night mode, locale...) differs.
+ * Must only be used from the main thread.
+ */
+final class StateDrawableCache {
+
+    private static final WeakHashMap<Resources.Theme, SparseArray<Entry>> sEntries = new WeakHashMap<>();
+    private static final Configuration sConfiguration = new Configuration();
+
+    private StateDrawableCache() {
+    }
+
+    /**
+     * Gets a new drawable for the resource in the theme of the context, with its bounds set to its
+     * minimum size
+     */
+    @SuppressWarnings("deprecation")
+    static Drawable get(Context context, int resId) {
+        Resources res = context.getResources();
+        Resources.Theme theme = context.getTheme();
+        Configuration configuration = res.getConfiguration();
+        if (sConfiguration.diff(configuration) != 0) {
+            sEntries.clear();
+            sConfiguration.setTo(configuration);
+        }
+        SparseArray<Entry> entries = sEntries.get(theme);
+        if (entries == null) {
+            entries = new SparseArray<>();
+            sEntries.put(theme, entries);
+        }
+        boolean themed = Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP;
+        Entry entry = entries.get(resId);
+        if (entry == null) {
+            Drawable drawable = themed ? res.getDrawable(resId, theme) : res.getDrawable(resId);
+            int width = drawable.getMinimumWidth();
+            int height = drawable.getMinimumHeight();
+            drawable.setBounds(0, 0, width, height);
+            Drawable.ConstantState state = drawable.getConstantState();
+            if (state != null) {
+                entries.put(resId, new Entry(state, width, height));
+            }
+            return drawable;
+        }
+        Drawable drawable = themed ? entry.state.newDrawable(res, theme) : entry.state.newDrawable(res);
+        drawable.setBounds(0, 0, entry.width, entry.height);
+        return drawable;
+    }
+
+    /**
+     * Drops every cached drawable, e.g. after a configuration change or when a theme changed in place
+     */
+    static void invalidate() {
+        sEntries.clear();
+        sConfiguration.setToDefaults();
+    }
+
+    private static final class Entry {
+        final Drawable.ConstantState state;
+        final int width;
+        final int height;
+
+        Entry(Drawable.ConstantState state, int width, int height) {
+            this.state = state;
+            this.width = width;
+            this.height = height;
+        }
+    }
+}
@@ -0,0 +1,463 @@
+package com.app.emptylayout;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.content.ComponentCallbacks2;
+import android.content.ContextWrapper;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.util.SparseArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+
+import java.util.ArrayList;
+
+/**
+ * Process-wide pool of inflated state views (loading / empty / error), keyed by layout resource.
+ * <p>
+ * A pooled view is only handed back to an EmptyLayout living in the same Context it was inflated
+ * with, so themed attributes stay correct. The views of an Activity are dropped when it is destroyed,
+ * including a recreation after a configuration change, so the pool never keeps a dead Activity alive.
+ * Must only be used from the main thread.
+ */
+public final class StateViewPool {
+
+    /**
+     * Default number of views kept per layout resource
+     */
+    public static final int DEFAULT_MAX_SIZE = 4;
+
+    private static final SparseArray<ArrayList<View>> sPool = new SparseArray<>();
+    private static int sMaxSize = DEFAULT_MAX_SIZE;
+
+    private static final ArrayList<PreloadTask> sPreloads = new ArrayList<>();
+    private static PreloadIdleHandler sPreloadIdleHandler;
+    private static int sInflationCount;
+    private static Application.ActivityLifecycleCallbacks sLifecycleCallbacks;
+    private static int sTrimmedCount;
+    private static long sTrimmedBytes;
+
+    private StateViewPool() {
+    }
+
+    /**
+     * Sets how many views are kept per layout resource
+     *
+     * @param maxSize max pooled views per layout, 0 disables pooling
+     */
+    public static void setMaxSize(int maxSize) {
+        sMaxSize = maxSize < 0 ? 0 : maxSize;
+        for (int i = 0; i < sPool.size(); i++) {
+            ArrayList<View> views = sPool.valueAt(i);
+            while (views.size() > sMaxSize) {
+                views.remove(views.size() - 1);
+            }
+        }
+    }
+
+    public static int getMaxSize() {
+        return sMaxSize;
+    }
+
+    /**
+     * Takes a view for the layout from the pool, or inflates a new one.
+     *
+     * @param inflater  the inflater of the requesting EmptyLayout
+     * @param layoutRes the layout resource
+     * @return a detached view inflated from layoutRes
+     */
+    static View acquire(LayoutInflater inflater, int layoutRes) {
+        View view = poll(inflater.getContext(), layoutRes);
+        if (view != null) {
+            return view;
+        }
+        // the view is needed before the warm-up reached it, this inflation counts for the warm-up
+        consumePreload(inflater.getContext(), layoutRes);
+        return inflate(inflater, layoutRes);
+    }
+
+    /**
+     * Inflates a state view which is not pooled, counted in {@link #getInflationCount()}
+     */
+    static View inflate(LayoutInflater inflater, int layoutRes) {
+        sInflationCount++;
+        return inflater.inflate(layoutRes, null);
+    }
+
+    /**
+     * Inflates state views ahead of time, one per main-thread idle slot, and puts them in the pool.
+     * May be called from any thread. An EmptyLayout asking for a view before it was preloaded
+     * simply inflates it synchronously, and the warm-up inflates one less.
+     *
+     * @param context   the context the EmptyLayouts will live in, usually the Activity
+     * @param count     how many views of each layout to prepare, capped by {@link #getMaxSize()}
+     * @param layoutRes the layout resources to preload
+     */
+    public static void preload(final Context context, final int count, final int... layoutRes) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            new Handler(Looper.getMainLooper()).post(new Runnable() {
+                @Override
+                public void run() {
+                    preload(context, count, layoutRes);
+                }
+            });
+            return;
+        }
+        LayoutInflater inflater = LayoutInflater.from(context);
+        for (int res : layoutRes) {
+            int remaining = Math.min(count, sMaxSize) - countPooled(context, res);
+            if (remaining > 0) {
+                sPreloads.add(new PreloadTask(inflater, res, remaining));
+            }
+        }
+        if (!sPreloads.isEmpty() && sPreloadIdleHandler == null) {
+            sPreloadIdleHandler = new PreloadIdleHandler();
+            Looper.myQueue().addIdleHandler(sPreloadIdleHandler);
+        }
+    }
+
+    /**
+     * Cancels every pending warm-up
+     */
+    public static void cancelPreloads() {
+        sPreloads.clear();
+        if (sPreloadIdleHandler != null) {
+            Looper.myQueue().removeIdleHandler(sPreloadIdleHandler);
+            sPreloadIdleHandler = null;
+        }
+    }
+
+    private static void consumePreload(Context context, int layoutRes) {
+        for (int i = 0; i < sPreloads.size(); i++) {
+            PreloadTask task = sPreloads.get(i);
+            if (task.layoutRes == layoutRes && task.inflater.getContext() == context) {
+                if (--task.remaining <= 0) {
+                    sPreloads.remove(i);
+                }
+                return;
+            }
+        }
+    }
+
+    private static int countPooled(Context context, int layoutRes) {
+        ArrayList<View> views = sPool.get(layoutRes);
+        int count = 0;
+        if (views != null) {
+            for (View view : views) {
+                if (view.getContext() == context) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Takes a view for the layout from the pool without inflating.
+     *
+     * @return the pooled view, or null when nothing usable is pooled
+     */
+    static View poll(Context context, int layoutRes) {
+        ArrayList<View> views = sPool.get(layoutRes);
+        if (views == null) {
+            return null;
+        }
+        for (int i = views.size() - 1; i >= 0; i--) {
+            View view = views.get(i);
+            Context viewContext = view.getContext();
+            if (isGone(viewContext)) {
+                views.remove(i);
+            } else if (viewContext == context) {
+                views.remove(i);
+                return view;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gives a view back to the pool. The view is detached from its parent first.
+     *
+     * @return true if the view was pooled, false if the pool for layoutRes is full
+     */
+    static boolean release(int layoutRes, View view) {
+        if (view == null) {
+            return false;
+        }
+        ViewGroup parent = (ViewGroup) view.getParent();
+        if (parent != null) {
+            parent.removeView(view);
+        }
+        ArrayList<View> views = sPool.get(layoutRes);
+        if (views == null) {
+            views = new ArrayList<>(sMaxSize);
+            sPool.put(layoutRes, views);
+        }
+        if (views.size() >= sMaxSize || views.contains(view) || isGone(view.getContext())) {
+            return false;
+        }
+        view.clearAnimation();
+        views.add(view);
+        watchActivity(view.getContext());
+        return true;
+    }
+
+    /**
+     * Drops the views of the Activity when it is destroyed. Needs API 14; before, the views of
+     * finishing activities are only dropped when the pool is used.
+     */
+    private static void watchActivity(Context context) {
+        if (sLifecycleCallbacks != null || Build.VERSION.SDK_INT < Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
+            return;
+        }
+        Activity activity = getActivity(context);
+        if (activity == null) {
+            return;
+        }
+        sLifecycleCallbacks = new Application.ActivityLifecycleCallbacks() {
+            @Override
+            public void onActivityDestroyed(Activity activity) {
+                clear(activity);
+            }
+
+            @Override
+            public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+            }
+
+            @Override
+            public void onActivityStarted(Activity activity) {
+            }
+
+            @Override
+            public void onActivityResumed(Activity activity) {
+            }
+
+            @Override
+            public void onActivityPaused(Activity activity) {
+            }
+
+            @Override
+            public void onActivityStopped(Activity activity) {
+            }
+
+            @Override
+            public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+            }
+        };
+        activity.getApplication().registerActivityLifecycleCallbacks(sLifecycleCallbacks);
+    }
+
+    /**
+     * Number of state views inflated since the process started, including warm-ups
+     */
+    public static int getInflationCount() {
+        return sInflationCount;
+    }
+
+    /**
+     * Number of pooled views for a layout resource
+     */
+    public static int size(int layoutRes) {
+        ArrayList<View> views = sPool.get(layoutRes);
+        return views == null ? 0 : views.size();
+    }
+
+    /**
+     * Number of pooled views, for every layout resource
+     */
+    public static int getPooledCount() {
+        int count = 0;
+        for (int i = 0; i < sPool.size(); i++) {
+            count += sPool.valueAt(i).size();
+        }
+        return count;
+    }
+
+    /**
+     * Estimated memory held by the pooled views, see {@link #getTrimmedBytes()}
+     */
+    public static long getPooledBytes() {
+        long bytes = 0;
+        for (int i = 0; i < sPool.size(); i++) {
+            ArrayList<View> views = sPool.valueAt(i);
+            for (int j = 0, size = views.size(); j < size; j++) {
+                bytes += estimateBytes(views.get(j));
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Number of state views released under memory pressure since the process started, pooled ones and
+     * the ones of states not shown by an EmptyLayout
+     */
+    public static int getTrimmedCount() {
+        return sTrimmedCount;
+    }
+
+    /**
+     * Estimated memory released under memory pressure since the process started. The estimate is the
+     * bitmaps of the images and backgrounds of the views; a bitmap shared by several views counts for
+     * each of them, so it is an upper bound.
+     */
+    public static long getTrimmedBytes() {
+        return sTrimmedBytes;
+    }
+
+    /**
+     * Records a view released under memory pressure
+     */
+    static void recordTrimmed(View view) {
+        sTrimmedCount++;
+        sTrimmedBytes += estimateBytes(view);
+    }
+
+    /**
+     * Estimates the memory held by a view tree, see {@link #getTrimmedBytes()}
+     */
+    static long estimateBytes(View view) {
+        long bytes = estimateBytes(view.getBackground());
+        if (view instanceof ImageView) {
+            bytes += estimateBytes(((ImageView) view).getDrawable());
+        }
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0, count = group.getChildCount(); i < count; i++) {
+                bytes += estimateBytes(group.getChildAt(i));
+            }
+        }
+        return bytes;
+    }
+
+    private static long estimateBytes(Drawable drawable) {
+        if (!(drawable instanceof BitmapDrawable)) {
+            return 0;
+        }
+        Bitmap bitmap = ((BitmapDrawable) drawable).getBitmap();
+        return bitmap != null ? (long) bitmap.getRowBytes() * bitmap.getHeight() : 0;
+    }
+
+    /**
+     * Releases pooled views for a {@link ComponentCallbacks2} trim level: one view per layout is kept
+     * when memory runs low, none when it is critical or the UI is hidden.
+     */
+    static void trimMemory(int level) {
+        int keep;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            keep = 0;
+            cancelPreloads();
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            keep = 1;
+        } else {
+            return;
+        }
+        for (int i = 0; i < sPool.size(); i++) {
+            ArrayList<View> views = sPool.valueAt(i);
+            while (views.size() > keep) {
+                recordTrimmed(views.remove(views.size() - 1));
+            }
+        }
+    }
+
+    /**
+     * Drops every pooled view
+     */
+    public static void clear() {
+        cancelPreloads();
+        sPool.clear();
+    }
+
+    /**
+     * Drops every pooled view inflated with the given context, and its pending warm-ups. For an Activity
+     * this includes the views inflated with a context wrapping it.
+     */
+    public static void clear(Context context) {
+        Activity activity = context instanceof Activity ? (Activity) context : null;
+        for (int i = 0; i < sPool.size(); i++) {
+            ArrayList<View> views = sPool.valueAt(i);
+            for (int j = views.size() - 1; j >= 0; j--) {
+                Context viewContext = views.get(j).getContext();
+                if (viewContext == context || activity != null && getActivity(viewContext) == activity) {
+                    views.remove(j);
+                }
+            }
+        }
+        for (int i = sPreloads.size() - 1; i >= 0; i--) {
+            Context preloadContext = sPreloads.get(i).inflater.getContext();
+            if (preloadContext == context || activity != null && getActivity(preloadContext) == activity) {
+                sPreloads.remove(i);
+            }
+        }
+    }
+
+    private static final class PreloadTask {
+        final LayoutInflater inflater;
+        final int layoutRes;
+        int remaining;
+
+        PreloadTask(LayoutInflater inflater, int layoutRes, int remaining) {
+            this.inflater = inflater;
+            this.layoutRes = layoutRes;
+            this.remaining = remaining;
+        }
+    }
+
+    /**
+     * Inflates a single view each time the main thread goes idle, so a warm-up never blocks a frame
+     * for longer than one inflation.
+     */
+    private static final class PreloadIdleHandler implements MessageQueue.IdleHandler {
+
+        @Override
+        public boolean queueIdle() {
+            if (!sPreloads.isEmpty()) {
+                PreloadTask task = sPreloads.get(0);
+                if (isGone(task.inflater.getContext())) {
+                    sPreloads.remove(0);
+                } else {
+                    View view = task.inflater.inflate(task.layoutRes, null);
+                    sInflationCount++;
+                    if (!release(task.layoutRes, view) || --task.remaining <= 0) {
+                        sPreloads.remove(0);
+                    }
+                }
+            }
+            if (sPreloads.isEmpty()) {
+                sPreloadIdleHandler = null;
+                return false;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Gets if the Activity of the context is finishing or destroyed
+     */
+    private static boolean isGone(Context context) {
+        Activity activity = getActivity(context);
+        if (activity == null) {
+            return false;
+        }
+        return activity.isFinishing()
+                || Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1 && activity.isDestroyed();
+    }
+
+    private static Activity getActivity(Context context) {
+        while (context instanceof ContextWrapper) {
+            if (context instanceof Activity) {
+                return (Activity) context;
+            }
+            context = ((ContextWrapper) context).getBaseContext();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,77 @@
+package com.app.emptylayout;
+
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the loading view shown over the content is laid out as soon as it is shown: the framework
+ * never lays out the children of a ViewGroupOverlay.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class LoadingOverlayTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+
+    private EmptyLayout mLayout;
+
+    @Before
+    public void setUp() {
+        StateViewPool.clear();
+        Context context = RuntimeEnvironment.application;
+        mLayout = new EmptyLayout(context);
+        mLayout.addView(new View(context), new LinearLayout.LayoutParams(LinearLayout.LayoutParams.MATCH_PARENT, 10));
+        mLayout.setLoadingOverlay(true);
+        mLayout.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mLayout.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    @After
+    public void tearDown() {
+        StateViewPool.clear();
+    }
+
+    @Test
+    public void loadingViewIsLaidOutOnFirstShow() {
+        showLoading();
+        assertLaidOut();
+    }
+
+    @Test
+    public void loadingViewIsLaidOutAfterHide() {
+        showLoading();
+        mLayout.hide();
+        ShadowLooper.runUiThreadTasks();
+        // the pooled view was given back on hide(), a new one is shown
+        showLoading();
+        assertLaidOut();
+    }
+
+    private void showLoading() {
+        mLayout.showLoading();
+        ShadowLooper.runUiThreadTasks();
+    }
+
+    private void assertLaidOut() {
+        ViewGroup loadingView = mLayout.getLoadingView();
+        assertNotNull("no loading view", loadingView);
+        assertTrue("loading view is " + loadingView.getWidth() + "x" + loadingView.getHeight(),
+                loadingView.getWidth() > 0 && loadingView.getHeight() > 0);
+    }
+}
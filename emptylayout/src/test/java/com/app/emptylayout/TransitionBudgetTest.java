@@ -0,0 +1,205 @@
+package com.app.emptylayout;
+
+import android.content.Context;
+import android.view.View;
+import android.widget.LinearLayout;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Properties;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the cost of showLoading, showEmpty, showError and hide against transition-budgets.properties,
+ * with 1, 50 and 500 content children.
+ * <p>
+ * The EmptyLayout is measured and laid out by hand after each transition, like a frame, so the counts do
+ * not depend on when the test runner schedules traversals.
+ */
+@RunWith(ParameterizedRobolectricTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 23)
+public class TransitionBudgetTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+
+    @ParameterizedRobolectricTestRunner.Parameters(name = "{0} children")
+    public static Collection<Object[]> childCounts() {
+        return Arrays.asList(new Object[][]{{1}, {50}, {500}});
+    }
+
+    private final int mChildCount;
+    private Properties mBudgets;
+    private CountingEmptyLayout mLayout;
+    private int mMeasures;
+
+    public TransitionBudgetTest(int childCount) {
+        mChildCount = childCount;
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        mBudgets = new Properties();
+        InputStream in = TransitionBudgetTest.class.getResourceAsStream("transition-budgets.properties");
+        assertNotNull("transition-budgets.properties is missing", in);
+        try {
+            mBudgets.load(in);
+        } finally {
+            in.close();
+        }
+
+        StateViewPool.clear();
+        Context context = RuntimeEnvironment.application;
+        mLayout = new CountingEmptyLayout(context);
+        mLayout.setOrientation(LinearLayout.VERTICAL);
+        for (int i = 0; i < mChildCount; i++) {
+            mLayout.addView(new View(context), new LinearLayout.LayoutParams(LinearLayout.LayoutParams.MATCH_PARENT, 10));
+        }
+        mLayout.setMetricsListener(new EmptyLayout.OnMetricsListener() {
+            @Override
+            public void onTransition(EmptyLayout layout, int type, long inflateNanos, long bindNanos,
+                                     long attachNanos, int inflations, int layoutRequests) {
+            }
+
+            @Override
+            public void onMeasure(EmptyLayout layout, long measureNanos) {
+                mMeasures++;
+            }
+
+            @Override
+            public void onFirstState(EmptyLayout layout, int type, long sinceCreateNanos) {
+            }
+        });
+        frame();
+    }
+
+    @After
+    public void tearDown() {
+        StateViewPool.clear();
+    }
+
+    @Test
+    public void transitionsStayWithinBudget() {
+        // the first cycle inflates the state views
+        cycle(true);
+        // later cycles only reuse them
+        cycle(false);
+        cycle(false);
+    }
+
+    private void cycle(boolean cold) {
+        transition("showLoading", cold, new Runnable() {
+            @Override
+            public void run() {
+                mLayout.showLoading();
+            }
+        });
+        transition("showEmpty", cold, new Runnable() {
+            @Override
+            public void run() {
+                mLayout.showEmpty();
+            }
+        });
+        transition("showError", cold, new Runnable() {
+            @Override
+            public void run() {
+                mLayout.showError();
+            }
+        });
+        transition("hide", cold, new Runnable() {
+            @Override
+            public void run() {
+                mLayout.hide();
+            }
+        });
+    }
+
+    private void transition(String name, boolean cold, Runnable transition) {
+        int inflations = StateViewPool.getInflationCount();
+        mLayout.layoutRequests = 0;
+        long allocated = getAllocatedBytes();
+        transition.run();
+        ShadowLooper.runUiThreadTasks();
+        allocated = allocated >= 0 ? getAllocatedBytes() - allocated : -1;
+        inflations = StateViewPool.getInflationCount() - inflations;
+        int layoutRequests = mLayout.layoutRequests;
+        mMeasures = 0;
+        frame();
+
+        check(name, cold ? "coldInflations" : "inflations", inflations);
+        check(name, "layoutRequests", layoutRequests);
+        check(name, "measures", mMeasures);
+        if (!cold && allocated >= 0) {
+            long budget = getBudget(name, "allocatedBytes") + getBudget(name, "allocatedBytesPerChild") * mChildCount;
+            assertTrue(name + " allocated " + allocated + " bytes, budget " + budget + " with " + mChildCount
+                    + " children", allocated <= budget);
+        }
+    }
+
+    private void check(String transition, String counter, long value) {
+        long budget = getBudget(transition, counter);
+        assertTrue(transition + " " + counter + " " + value + ", budget " + budget + " with " + mChildCount
+                + " children", value <= budget);
+    }
+
+    private long getBudget(String transition, String counter) {
+        String value = mBudgets.getProperty(transition + "." + counter);
+        assertNotNull("no budget for " + transition + "." + counter, value);
+        return Long.parseLong(value.trim());
+    }
+
+    private void frame() {
+        mLayout.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mLayout.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    /**
+     * Gets the bytes allocated by the current thread, -1 when the JVM cannot count them
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+            return -1;
+        }
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) bean;
+        if (!allocations.isThreadAllocatedMemorySupported() || !allocations.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        return allocations.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Counts every layout request reaching the EmptyLayout, including the ones of hide() which no
+     * OnMetricsListener callback reports
+     */
+    private static final class CountingEmptyLayout extends EmptyLayout {
+
+        int layoutRequests;
+
+        CountingEmptyLayout(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void requestLayout() {
+            layoutRequests++;
+            super.requestLayout();
+        }
+    }
+}